@@ -0,0 +1,179 @@
+package com.example.usakogame.bench;
+
+import com.example.usakogame.flappy.FlappyAutopilot;
+import com.example.usakogame.flappy.FlappyWorld;
+import com.example.usakogame.runner.RunnerAutopilot;
+import com.example.usakogame.runner.RunnerMetrics;
+import com.example.usakogame.runner.RunnerWorld;
+import com.example.usakogame.sim.Policy;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.IntStream;
+
+// Offline training of the attract-mode autopilots (RunnerAutopilot / FlappyAutopilot) by
+// evolution strategy: each generation samples POPULATION weight vectors around the current
+// mean (mirrored pairs), plays each on EPISODES headless games, and moves the mean to the
+// rank-weighted average of the best quarter. Games are spread over a ForkJoinPool (all
+// cores by default); each pool thread reuses one world. The mean is scored on fixed
+// validation seeds every generation and the best one is written as the policy file.
+//
+//   java -cp benchmarks.jar com.example.usakogame.bench.AutopilotTrainer <runner|flappy> <out.policy> [generations] [threads]
+//
+// Copy the result to src/main/resources/com/example/usakogame/autopilot/ (shipped) or to
+// the data directory (overrides the shipped one).
+public class AutopilotTrainer {
+    private static final int POPULATION = 64;
+    private static final int PARENTS = POPULATION / 4;
+    private static final int EPISODES = 8;
+    private static final int VALIDATION_EPISODES = 8;
+    private static final int MAX_TICKS = 3 * 60 * 60; // 3 minutes per game
+    private static final long VALIDATION_SEED = 1_000_000;
+
+    private static final RunnerMetrics METRICS = RunnerMetrics.load();
+    private static final ThreadLocal<RunnerWorld> RUNNER = ThreadLocal.withInitial(() -> new RunnerWorld(METRICS, 0));
+    private static final ThreadLocal<FlappyWorld> FLAPPY = ThreadLocal.withInitial(() -> FlappyWorld.withShippedSprites(0));
+
+    private final boolean runner;
+    private final int inputs, hidden, outputs;
+    private final ForkJoinPool pool;
+    private final LongAdder ticks = new LongAdder();
+    private final LongAdder episodes = new LongAdder();
+
+    private AutopilotTrainer(boolean runner, int threads) {
+        this.runner = runner;
+        this.inputs = runner ? RunnerAutopilot.FEATURES : FlappyAutopilot.FEATURES;
+        this.hidden = runner ? 8 : 6;
+        this.outputs = runner ? RunnerAutopilot.OUTPUTS : FlappyAutopilot.OUTPUTS;
+        this.pool = new ForkJoinPool(threads);
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2 || !(args[0].equals("runner") || args[0].equals("flappy"))) {
+            System.out.println("usage: AutopilotTrainer <runner|flappy> <out.policy> [generations] [threads]");
+            System.exit(2);
+        }
+        int generations = args.length > 2 ? Integer.parseInt(args[2]) : 150;
+        int threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+        AutopilotTrainer trainer = new AutopilotTrainer(args[0].equals("runner"), threads);
+        try {
+            Policy best = trainer.train(generations);
+            Path out = Paths.get(args[1]);
+            Files.write(out, best.toBytes());
+            System.out.println("Wrote " + out + " (" + Files.size(out) + " bytes)");
+        } finally {
+            trainer.pool.shutdown();
+        }
+    }
+
+    private Policy train(int generations) throws Exception {
+        int dim = Policy.weightCount(inputs, hidden, outputs);
+        SplittableRandom random = new SplittableRandom(1);
+        double[] mean = new double[dim];
+        for (int i = 0; i < dim; i++) mean[i] = random.nextGaussian() * 0.5;
+        double sigma = 1.0; // Broad search first; small steps get stuck on "always jump"
+
+        // Log-rank recombination weights
+        double[] rankWeights = new double[PARENTS];
+        double total = 0;
+        for (int i = 0; i < PARENTS; i++) total += rankWeights[i] = Math.log(PARENTS + 0.5) - Math.log(i + 1);
+        for (int i = 0; i < PARENTS; i++) rankWeights[i] /= total;
+
+        float[] best = toFloats(mean);
+        double bestScore = Double.NEGATIVE_INFINITY;
+        long start = System.nanoTime();
+        for (int gen = 1; gen <= generations; gen++) {
+            double[][] noise = new double[POPULATION][dim];
+            float[][] candidates = new float[POPULATION][];
+            for (int k = 0; k < POPULATION; k += 2) {
+                for (int i = 0; i < dim; i++) noise[k][i] = random.nextGaussian();
+                for (int i = 0; i < dim; i++) noise[k + 1][i] = -noise[k][i];
+            }
+            for (int k = 0; k < POPULATION; k++) {
+                double[] x = new double[dim];
+                for (int i = 0; i < dim; i++) x[i] = mean[i] + sigma * noise[k][i];
+                candidates[k] = toFloats(x);
+            }
+
+            // Same seeds for the whole generation, new ones every generation
+            long seedBase = (long) gen * EPISODES;
+            double[] fitness = score(candidates, seedBase, EPISODES);
+            Integer[] order = new Integer[POPULATION];
+            for (int k = 0; k < POPULATION; k++) order[k] = k;
+            Arrays.sort(order, (a, b) -> Double.compare(fitness[b], fitness[a]));
+
+            for (int i = 0; i < dim; i++) {
+                double step = 0;
+                for (int r = 0; r < PARENTS; r++) step += rankWeights[r] * noise[order[r]][i];
+                mean[i] += sigma * step;
+            }
+            sigma = Math.max(sigma * 0.99, 0.1);
+
+            float[] meanWeights = toFloats(mean);
+            double validation = score(new float[][] { meanWeights }, VALIDATION_SEED, VALIDATION_EPISODES)[0];
+            if (validation > bestScore) {
+                bestScore = validation;
+                best = meanWeights;
+            }
+            if (gen % 10 == 0 || gen == generations) {
+                System.out.printf("gen %d: best %.1f, median %.1f, validation %.1f (best %.1f), sigma %.3f%n",
+                        gen, fitness[order[0]], fitness[order[POPULATION / 2]], validation, bestScore, sigma);
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%d generations in %.1f s on %d threads: %.2f generations/s, %.0f games/s, %.0f ticks/s%n",
+                generations, seconds, pool.getParallelism(), generations / seconds, episodes.sum() / seconds, ticks.sum() / seconds);
+        return new Policy(inputs, hidden, outputs, best);
+    }
+
+    // Mean fitness of each candidate over the same episodes; one pool task per game
+    private double[] score(float[][] candidates, long seedBase, int episodesEach) throws Exception {
+        double[] perGame = pool.submit(() -> IntStream.range(0, candidates.length * episodesEach).parallel()
+                .mapToDouble(g -> play(candidates[g / episodesEach], seedBase + g % episodesEach))
+                .toArray()).get();
+        double[] fitness = new double[candidates.length];
+        for (int g = 0; g < perGame.length; g++) fitness[g / episodesEach] += perGame[g] / episodesEach;
+        return fitness;
+    }
+
+    // One game from its seed until game over or MAX_TICKS
+    private double play(float[] weights, long seed) {
+        Policy policy = new Policy(inputs, hidden, outputs, weights);
+        int t = 0;
+        double fitness;
+        if (runner) {
+            RunnerAutopilot pilot = new RunnerAutopilot(policy);
+            RunnerWorld w = RUNNER.get();
+            w.reset(seed);
+            while (!w.isGameOver() && t < MAX_TICKS) {
+                w.step(pilot.decide(w));
+                t++;
+            }
+            fitness = w.getScore();
+        } else {
+            FlappyAutopilot pilot = new FlappyAutopilot(policy);
+            FlappyWorld w = FLAPPY.get();
+            w.reset(seed);
+            while (!w.isGameOver() && t < MAX_TICKS) {
+                w.step(pilot.decide(w));
+                t++;
+            }
+            // Pipes first; surviving longer breaks ties while no pipe is passed yet
+            fitness = w.getScore() + t / (double) MAX_TICKS;
+        }
+        ticks.add(t);
+        episodes.increment();
+        return fitness;
+    }
+
+    private static float[] toFloats(double[] x) {
+        float[] f = new float[x.length];
+        for (int i = 0; i < x.length; i++) f[i] = (float) x[i];
+        return f;
+    }
+}
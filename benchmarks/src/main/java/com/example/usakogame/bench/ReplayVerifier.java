@@ -0,0 +1,182 @@
+package com.example.usakogame.bench;
+
+import com.example.usakogame.flappy.FlappyBenchmark;
+import com.example.usakogame.flappy.FlappyWorld;
+import com.example.usakogame.runner.RunnerBenchmark;
+import com.example.usakogame.runner.RunnerMetrics;
+import com.example.usakogame.runner.RunnerWorld;
+import com.example.usakogame.sim.Input;
+import com.example.usakogame.sim.Replay;
+import com.example.usakogame.sim.ReplayRecorder;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+// Batch check of recorded runs (the game's replays/*.rpl, see sim.Replay): re-simulates each
+// one with the game rules, without a display, and flags any whose claimed score or final
+// checksum is not reproduced. Runs are spread over a ForkJoinPool (all cores by default);
+// each worker thread reuses one world per game, so the work scales with the cores.
+// Exit code 1 if any run is flagged.
+//
+//   java -cp benchmarks.jar com.example.usakogame.bench.ReplayVerifier <dir> [threads]
+//   java -cp benchmarks.jar com.example.usakogame.bench.ReplayVerifier --generate <dir> <runs>
+//
+// --generate writes autopilot runs to try it on (each stops steering at a random tick).
+public class ReplayVerifier {
+    // A run claiming more ticks than this is rejected instead of simulated
+    private static final int MAX_TICKS = 6 * 60 * 60 * 60;
+    private static final int MAX_GENERATED_TICKS = 10 * 60 * 60;
+
+    private static final RunnerMetrics METRICS = RunnerMetrics.load();
+    private static final ThreadLocal<RunnerWorld> RUNNER = ThreadLocal.withInitial(() -> new RunnerWorld(METRICS, 0));
+    private static final ThreadLocal<FlappyWorld> FLAPPY = ThreadLocal.withInitial(() -> FlappyWorld.withShippedSprites(0));
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 3 && args[0].equals("--generate")) {
+            generate(Paths.get(args[1]), Integer.parseInt(args[2]));
+            return;
+        }
+        if (args.length < 1) {
+            System.out.println("usage: ReplayVerifier <dir> [threads] | --generate <dir> <runs>");
+            System.exit(2);
+        }
+        Path dir = Paths.get(args[0]);
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, "*.rpl")) {
+            for (Path f : stream) files.add(f);
+        }
+        files.sort(null);
+
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        long start = System.nanoTime();
+        List<Result> results;
+        try {
+            results = pool.submit(() -> files.parallelStream().map(ReplayVerifier::verify).toList()).get();
+        } finally {
+            pool.shutdown();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        long ticks = 0;
+        int flagged = 0;
+        for (Result r : results) {
+            ticks += r.ticks;
+            if (r.problem == null) continue;
+            flagged++;
+            System.out.println("FLAGGED " + r.file.getFileName() + ": " + r.problem);
+        }
+        System.out.printf("%d runs, %d flagged, %d ticks in %.3f s on %d threads%n", results.size(), flagged, ticks, seconds, threads);
+        System.out.printf("%.0f runs/s, %.0f ticks/s (%.0f ticks/s per thread)%n",
+                results.size() / seconds, ticks / seconds, ticks / seconds / threads);
+        if (flagged > 0) System.exit(1);
+    }
+
+    // Runs on a pool thread; never throws, whatever the file holds
+    static Result verify(Path file) {
+        Replay replay;
+        try {
+            replay = Replay.fromBytes(Files.readAllBytes(file));
+        } catch (IOException | RuntimeException e) {
+            return new Result(file, 0, "unreadable (" + e.getMessage() + ")");
+        }
+        if (replay.ticks < 0 || replay.ticks > MAX_TICKS) return new Result(file, 0, "claims " + replay.ticks + " ticks");
+        try {
+            return simulate(file, replay);
+        } catch (RuntimeException e) {
+            // Input changes that do not decode
+            return new Result(file, 0, "damaged inputs (" + e + ")");
+        }
+    }
+
+    private static Result simulate(Path file, Replay replay) {
+        int score;
+        long checksum;
+        int tick = 0;
+        boolean over = false;
+        Replay.Cursor cursor = replay.cursor();
+        if (replay.mode == Replay.MODE_RUNNER) {
+            RunnerWorld w = RUNNER.get();
+            w.reset(replay.seed);
+            while (tick < replay.ticks && !over) {
+                w.step(cursor.next());
+                tick++;
+                over = w.isGameOver();
+            }
+            score = w.getScore();
+            checksum = w.checksum();
+        } else if (replay.mode == Replay.MODE_FLAPPY) {
+            FlappyWorld w = FLAPPY.get();
+            w.reset(replay.seed);
+            while (tick < replay.ticks && !over) {
+                w.step(cursor.next());
+                tick++;
+                over = w.isGameOver();
+            }
+            score = w.getScore();
+            checksum = w.checksum();
+        } else {
+            return new Result(file, 0, "unknown mode " + replay.mode);
+        }
+
+        // The run must end in a crash exactly on its last tick, with the claimed score and state
+        String problem = null;
+        if (!over || tick != replay.ticks) problem = "run ends at tick " + tick + (over ? "" : " without game over") + ", claims " + replay.ticks;
+        else if (score != replay.score) problem = "claims score " + replay.score + ", replays to " + score;
+        else if (checksum != replay.checksum) problem = "score " + score + " matches but the final state differs";
+        return new Result(file, tick, problem);
+    }
+
+    private static void generate(Path dir, int runs) throws IOException {
+        Files.createDirectories(dir);
+        ReplayRecorder recorder = new ReplayRecorder();
+        RunnerWorld runner = new RunnerWorld(METRICS, 0);
+        FlappyWorld flappy = FlappyWorld.withShippedSprites(0);
+        for (int i = 0; i < runs; i++) {
+            long seed = i + 1;
+            // Steers until a random tick, then lets go so the run ends in a crash
+            int steerTicks = Math.floorMod(seed * 0x9E3779B97F4A7C15L, MAX_GENERATED_TICKS - 600) + 600;
+            Replay replay;
+            if (i % 2 == 0) {
+                runner.reset(seed);
+                recorder.start(Replay.MODE_RUNNER, seed);
+                for (int t = 0; !runner.isGameOver(); t++) {
+                    int input = t == 0 ? Input.START : t < steerTicks ? RunnerBenchmark.autopilot(runner) : Input.NONE;
+                    recorder.record(input);
+                    runner.step(input);
+                }
+                replay = recorder.finish(runner.getScore(), runner.checksum());
+            } else {
+                flappy.reset(seed);
+                recorder.start(Replay.MODE_FLAPPY, seed);
+                for (int t = 0; !flappy.isGameOver(); t++) {
+                    int input = t == 0 ? Input.START : t < steerTicks ? FlappyBenchmark.autopilot(flappy) : Input.NONE;
+                    recorder.record(input);
+                    flappy.step(input);
+                }
+                replay = recorder.finish(flappy.getScore(), flappy.checksum());
+            }
+            Files.write(dir.resolve(Long.toHexString(seed) + ".rpl"), replay.toBytes());
+        }
+        System.out.println("Wrote " + runs + " runs to " + dir);
+    }
+
+    static class Result {
+        final Path file;
+        final int ticks;      // Simulated
+        final String problem; // null = verified
+
+        Result(Path file, int ticks, String problem) {
+            this.file = file;
+            this.ticks = ticks;
+            this.problem = problem;
+        }
+    }
+}
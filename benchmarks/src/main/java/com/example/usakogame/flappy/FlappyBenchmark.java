@@ -0,0 +1,88 @@
+package com.example.usakogame.flappy;
+
+import com.example.usakogame.sim.EntityStore;
+import com.example.usakogame.sim.Input;
+import com.example.usakogame.sim.Policy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+
+// Hot paths of Flappy Usako: one simulation tick (FlappyBirdGame.update), the
+// per-pipe collision test and the demo autopilot.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FlappyBenchmark {
+    private FlappyWorld world;
+    private FlappyWorld onScreen;
+    private long seed = 1;
+    private FlappyAutopilot pilot;
+
+    @Setup
+    public void setup() throws IOException {
+        world = FlappyWorld.withShippedSprites(seed);
+        world.step(Input.START);
+        try (InputStream in = FlappyAutopilot.class.getResourceAsStream("/com/example/usakogame/autopilot/flappy.policy")) {
+            pilot = new FlappyAutopilot(Policy.read(in));
+        }
+
+        // Pipes cross the screen in ~200 ticks and spawn every 110, so 2-3 are live at once
+        onScreen = FlappyWorld.withShippedSprites(seed);
+        onScreen.step(Input.START);
+        EntityStore pipes = onScreen.getPipes();
+        pipes.spawn(90, 0, FlappyWorld.PIPE_WIDTH, 180, 0);
+        pipes.spawn(300, 0, FlappyWorld.PIPE_WIDTH, 260, 0);
+        pipes.spawn(580, 0, FlappyWorld.PIPE_WIDTH, 120, 0);
+    }
+
+    // Autopilot that flaps below the next gap's centre, so the run keeps going through pipes
+    public static int autopilot(FlappyWorld w) {
+        double target = w.getBirdY();
+        EntityStore pipes = w.getPipes();
+        for (int i = 0; i < pipes.size(); i++) {
+            int s = pipes.slot(i);
+            if (pipes.x[s] + FlappyWorld.PIPE_WIDTH >= FlappyWorld.BIRD_X) {
+                target = pipes.h[s] + FlappyWorld.PIPE_GAP * 0.6;
+                break;
+            }
+        }
+        return (w.getBirdY() + w.getBirdHeight() > target && w.getBirdVelocity() > 0) ? Input.JUMP : Input.NONE;
+    }
+
+    // Trained attract-mode autopilot: features + policy network, run once per demo tick
+    @Benchmark
+    public int trainedAutopilot() {
+        return pilot.decide(world);
+    }
+
+    @Benchmark
+    public int update() {
+        int events = world.step(autopilot(world));
+        if (world.isGameOver()) {
+            world.reset(++seed);
+            world.step(Input.START);
+        }
+        return events;
+    }
+
+    @Benchmark
+    public void checkCollision(Blackhole bh) {
+        EntityStore pipes = onScreen.getPipes();
+        for (int i = 0; i < pipes.size(); i++) bh.consume(onScreen.checkCollision(pipes.slot(i)));
+    }
+}
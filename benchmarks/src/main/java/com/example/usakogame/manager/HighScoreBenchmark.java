@@ -0,0 +1,67 @@
+package com.example.usakogame.manager;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Ranking reads and writes as done on every reset, game over and ranking screen.
+// Runs against a throwaway data directory so the real rankings are never touched.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HighScoreBenchmark {
+    private int counter = 0;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        // Must be set before HighScoreManager is first loaded
+        System.setProperty("usako.dataDir", Files.createTempDirectory("usako-bench").toString());
+        for (int i = 0; i < 5; i++) HighScoreManager.submitScore("runner", "Player" + i, 100 * i);
+    }
+
+    @Benchmark
+    public List<HighScoreManager.ScoreEntry> getTopScores() {
+        return HighScoreManager.getTopScores("runner");
+    }
+
+    // Ranking screen statistics: fixed cost however many runs were recorded
+    @Benchmark
+    public ScoreStats.Summary getStats() {
+        return HighScoreManager.getStats("runner", null);
+    }
+
+    // What the FX thread pays: the in-memory update (the write happens on the writer thread)
+    @Benchmark
+    public void submitScore() {
+        HighScoreManager.submitScore("runner", "BENCH", counter++ % 1000);
+    }
+
+    // A game over: the anonymous run appended to the history (the log write is queued)
+    @Benchmark
+    public long recordRun() {
+        return HighScoreManager.recordRun("runner", counter++ % 1000, 30_000);
+    }
+
+    // Full cost including the background write reaching the disk
+    @Benchmark
+    public void submitScoreAndFlush() {
+        HighScoreManager.submitScore("runner", "BENCH", counter++ % 1000);
+        HighScoreManager.flush();
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.usakogame.manager;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// Music synthesis throughput: one 10 ms mixer period (what the audio thread renders per
+// write, must stay far below 10 ms) and one second of music rendered headless.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MusicBenchmark {
+    private static final int PERIOD_FRAMES = 441;
+
+    private MusicSequencer music;
+    private final int[] period = new int[PERIOD_FRAMES];
+
+    @Setup
+    public void setup() {
+        music = new MusicSequencer(1);
+        music.setTempo(180);
+        music.setPlaying(true);
+    }
+
+    @Benchmark
+    public int[] period() {
+        music.renderChunk(period, PERIOD_FRAMES);
+        return period;
+    }
+
+    @Benchmark
+    public short[] oneSecond() {
+        return new MusicSequencer(1).renderSeconds(1);
+    }
+}
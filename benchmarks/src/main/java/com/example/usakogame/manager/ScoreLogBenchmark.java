@@ -0,0 +1,67 @@
+package com.example.usakogame.manager;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Startup cost of a large runs.log: a compacted log with its index plus an uncompacted tail,
+// as left behind by a long arcade session.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ScoreLogBenchmark {
+    @Param({"100000", "500000"})
+    public int runs;
+
+    private Path dir;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        dir = Files.createTempDirectory("usako-log-bench");
+        Random random = new Random(15);
+        RunHistory history = new RunHistory();
+        for (int i = 0; i < runs; i++) {
+            // About one run in ten gets a name on the game over screen
+            String name = random.nextInt(10) == 0 ? "Player" + random.nextInt(50) : null;
+            history.add(i, random.nextInt(2), random.nextInt(5000), 1_700_000_000_000L + i * 60_000L, random.nextInt(120_000), name);
+        }
+        ScoreLog log = new ScoreLog(dir);
+        log.lock();
+        log.reload();
+        log.compact(history);
+        for (int i = 0; i < 1000; i++) {
+            log.append(ScoreLog.encodeRun(runs + i, i & 1, random.nextInt(5000), 0, 0, i % 10 == 0 ? "Tail" : null));
+        }
+        log.unlock();
+        log.close();
+    }
+
+    // mmap scan of every record plus the index, then the full ranking order of one mode
+    @Benchmark
+    public int recover() throws IOException {
+        ScoreLog log = new ScoreLog(dir);
+        log.lock();
+        RunHistory history = log.reload();
+        log.unlock();
+        log.close();
+        return history.rankOrder(1).length;
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.usakogame.manager;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Sample synthesis of the sound effects (done once by SoundBank, without opening an audio line)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SoundBenchmark {
+    private final Random random = new Random(1);
+
+    @Benchmark
+    public short[] jumpTone() {
+        return SoundBank.synthTone(300, 600, 100, 0.5);
+    }
+
+    @Benchmark
+    public short[] scoreTone() {
+        return SoundBank.synthTone(1200, 1800, 80, 0.4);
+    }
+
+    @Benchmark
+    public short[] gameOverNoise() {
+        return SoundBank.synthNoise(400, random);
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.usakogame.runner;
+
+import com.example.usakogame.sim.EntityStore;
+import com.example.usakogame.sim.Playfield;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+// Collision cost of one tick in dense worlds: a stream of obstacles every 30 px, starting
+// just behind the player, all passing above its head so every test runs to the end.
+// broadPhase is RunnerWorld.collides() (sorted store + binary search); allPairs is the
+// narrow-phase test against every obstacle, as before the broad phase.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BroadPhaseBenchmark {
+    private static final double SPACING = 30;
+
+    @Param({"3", "100", "1000", "10000"})
+    public int obstacles;
+
+    private RunnerWorld world;
+
+    @Setup
+    public void setup() {
+        world = new RunnerWorld(RunnerMetrics.load(), 1, obstacles);
+        EntityStore store = world.getObstacles();
+        double y = RunnerWorld.GROUND_Y - 149; // Highest sky obstacle, clear of a standing player
+        for (int i = 0; i < obstacles; i++) {
+            double x = RunnerWorld.PLAYER_X - 90 + i * SPACING;
+            if (obstacles <= 3) x = RunnerWorld.PLAYER_X - 90 + i * Playfield.WIDTH / 3.0; // A normal screenful
+            store.spawn(x, y, RunnerWorld.SKY_SIZE, RunnerWorld.SKY_SIZE, RunnerWorld.OBSTACLE_SKY);
+        }
+    }
+
+    @Benchmark
+    public boolean broadPhase() {
+        return world.collides();
+    }
+
+    @Benchmark
+    public void allPairs(Blackhole bh) {
+        EntityStore store = world.getObstacles();
+        for (int i = 0; i < store.size(); i++) bh.consume(world.checkCollision(store.slot(i)));
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.usakogame.runner;
+
+import com.example.usakogame.sim.EntityStore;
+import com.example.usakogame.sim.Playfield;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Entity bookkeeping without collision. update: keep prevX, scroll, drop the ones off
+// screen and spawn at the right edge (a steady stream keeps the count constant; 3 is a
+// normal screenful). render: read every entity's interpolated box as the renderers do.
+// *Columns is EntityStore; *Objects is the layout it replaced (a pooled object per
+// entity in an ArrayList, removed from the front).
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EntityStoreBenchmark {
+    private static final double SPEED = RunnerWorld.START_SPEED;
+    private static final double LEFT = -100; // Despawn line, as in RunnerWorld
+
+    @Param({"3", "30", "300"})
+    public int entities;
+
+    private double spacing;
+    private EntityStore store;
+    private final List<Obstacle> list = new ArrayList<>();
+    private final List<Obstacle> pool = new ArrayList<>();
+    private double alpha = 0.5;
+
+    static final class Obstacle {
+        double x, prevX, y, w, h;
+        boolean isSky;
+
+        void set(double x, double y, double w, double h, boolean isSky) {
+            this.x = x;
+            this.prevX = x;
+            this.y = y;
+            this.w = w;
+            this.h = h;
+            this.isSky = isSky;
+        }
+    }
+
+    @Setup
+    public void setup() {
+        spacing = (Playfield.WIDTH - LEFT) / entities;
+        store = new EntityStore(entities + 1);
+        for (int i = 0; i < entities; i++) {
+            double x = LEFT + i * spacing;
+            boolean isSky = (i & 1) != 0;
+            store.spawn(x, RunnerWorld.GROUND_Y - 60, 50, 60, isSky ? RunnerWorld.OBSTACLE_SKY : RunnerWorld.OBSTACLE_GROUND);
+            Obstacle o = new Obstacle();
+            o.set(x, RunnerWorld.GROUND_Y - 60, 50, 60, isSky);
+            list.add(o);
+        }
+    }
+
+    @Benchmark
+    public void updateColumns() {
+        store.savePositions();
+        store.scroll(SPEED);
+        while (!store.isEmpty() && store.x[store.slot(0)] < LEFT) {
+            store.despawnOldest();
+            double x = store.x[store.slot(store.size() - 1)] + spacing;
+            store.spawn(x, RunnerWorld.GROUND_Y - 60, 50, 60, RunnerWorld.OBSTACLE_GROUND);
+        }
+    }
+
+    @Benchmark
+    public double renderColumns() {
+        double sum = 0;
+        for (int run = 0; run < 2; run++) {
+            for (int s = store.runStart(run), end = store.runEnd(run); s < end; s++) {
+                double ox = store.prevX[s] + (store.x[s] - store.prevX[s]) * alpha;
+                sum += store.type[s] == RunnerWorld.OBSTACLE_SKY ? ox + store.y[s] : ox * store.w[s] + store.h[s];
+            }
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public void updateObjects() {
+        for (int i = 0; i < list.size(); i++) list.get(i).prevX = list.get(i).x;
+        for (int i = 0; i < list.size(); i++) list.get(i).x -= SPEED;
+        while (!list.isEmpty() && list.get(0).x < LEFT) {
+            pool.add(list.remove(0));
+            double x = list.get(list.size() - 1).x + spacing;
+            Obstacle o = pool.remove(pool.size() - 1);
+            o.set(x, RunnerWorld.GROUND_Y - 60, 50, 60, false);
+            list.add(o);
+        }
+    }
+
+    @Benchmark
+    public double renderObjects() {
+        double sum = 0;
+        for (int i = 0; i < list.size(); i++) {
+            Obstacle o = list.get(i);
+            double ox = o.prevX + (o.x - o.prevX) * alpha;
+            sum += o.isSky ? ox + o.y : ox * o.w + o.h;
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.usakogame.runner;
+
+import com.example.usakogame.sim.CollisionMask;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+// Precomputes the Runner's per-frame collision masks from the sprite PNGs, so the game
+// does not decode every sprite at startup. Re-run it whenever a Runner sprite changes and
+// copy the output to src/main/resources/com/example/usakogame/runner.masks.
+//
+//   java -cp benchmarks.jar com.example.usakogame.runner.MaskBaker <out.masks>
+public class MaskBaker {
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.out.println("usage: MaskBaker <out.masks>");
+            System.exit(2);
+        }
+        RunnerMetrics metrics = RunnerMetrics.load();
+        long start = System.nanoTime();
+        CollisionMask[] masks = RunnerMetrics.buildMasks(metrics);
+        long ms = (System.nanoTime() - start) / 1_000_000;
+        for (int i = 0; i < masks.length; i++) {
+            CollisionMask m = masks[i];
+            System.out.printf("frame %2d: %dx%d, %d of %d pixels solid%n", i, m.width, m.height, m.countSet(), m.width * m.height);
+        }
+        Path out = Paths.get(args[0]);
+        Files.write(out, CollisionMask.toBytes(masks, RunnerMetrics.sourceHash(metrics)));
+        System.out.println("Decoded " + masks.length + " frames in " + ms + " ms; wrote " + out + " (" + Files.size(out) + " bytes)");
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.usakogame.runner;
+
+import com.example.usakogame.sim.EntityStore;
+import com.example.usakogame.sim.Input;
+import com.example.usakogame.sim.Policy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+
+// Hot paths of Usako Run!: one simulation tick (RunnerGame.update), the narrow-phase
+// collision test (early-out and pixel masks), sprite selection (RunnerGame.getCurrentSprite)
+// and the demo autopilot.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RunnerBenchmark {
+    private RunnerWorld world;
+    private RunnerWorld jumping;
+    private RunnerWorld onScreen;
+    private RunnerWorld standing;
+    private long seed = 1;
+    private RunnerAutopilot pilot;
+
+    @Setup
+    public void setup() throws IOException {
+        RunnerMetrics metrics = RunnerMetrics.load();
+        world = new RunnerWorld(metrics, seed);
+        world.step(Input.START);
+        try (InputStream in = RunnerAutopilot.class.getResourceAsStream("/com/example/usakogame/autopilot/runner.policy")) {
+            pilot = new RunnerAutopilot(Policy.read(in));
+        }
+
+        // A typical screenful: ground block near the player, a bird mid-screen and one just spawned
+        onScreen = new RunnerWorld(metrics, seed);
+        onScreen.step(Input.START);
+        EntityStore screenful = onScreen.getObstacles();
+        screenful.spawn(150, RunnerWorld.GROUND_Y - 60, 50, 60, RunnerWorld.OBSTACLE_GROUND);
+        screenful.spawn(330, RunnerWorld.GROUND_Y - 120, 45, 45, RunnerWorld.OBSTACLE_SKY);
+        screenful.spawn(590, RunnerWorld.GROUND_Y - 60, 50, 60, RunnerWorld.OBSTACLE_GROUND);
+
+        // Boxes overlapping the standing player's sprite, so the masks are AND-ed: the first two
+        // only cover transparent corners (the largest such overlaps), the last one hits the feet.
+        // Each scrolled in at the start speed this tick, as in a run.
+        standing = new RunnerWorld(metrics, seed);
+        double top = RunnerWorld.GROUND_Y - standing.getSpriteHeight();
+        EntityStore overlapping = standing.getObstacles();
+        overlapping.spawn(RunnerWorld.PLAYER_X + 35, top - 25, 50, 60, RunnerWorld.OBSTACLE_GROUND);
+        overlapping.spawn(RunnerWorld.PLAYER_X - 34, top + 9, 45, 45, RunnerWorld.OBSTACLE_SKY);
+        overlapping.spawn(RunnerWorld.PLAYER_X + 20, RunnerWorld.GROUND_Y - 60, 50, 60, RunnerWorld.OBSTACLE_GROUND);
+        for (int i = 0; i < overlapping.size(); i++) {
+            int s = overlapping.slot(i);
+            overlapping.prevX[s] = overlapping.x[s] + RunnerWorld.START_SPEED;
+        }
+
+        jumping = new RunnerWorld(metrics, seed);
+        jumping.step(Input.JUMP);
+        for (int i = 0; i < 8; i++) jumping.step(Input.NONE);
+    }
+
+    // Autopilot that jumps ground blocks, so the run keeps going with live obstacles
+    public static int autopilot(RunnerWorld w) {
+        EntityStore obstacles = w.getObstacles();
+        for (int i = 0; i < obstacles.size(); i++) {
+            int s = obstacles.slot(i);
+            double dist = obstacles.x[s] - RunnerWorld.PLAYER_X;
+            if (dist > 0 && dist < 90) return obstacles.type[s] == RunnerWorld.OBSTACLE_SKY ? Input.CROUCH : Input.JUMP;
+        }
+        return Input.NONE;
+    }
+
+    // Trained attract-mode autopilot: features + policy network, run once per demo tick
+    @Benchmark
+    public int trainedAutopilot() {
+        return pilot.decide(world);
+    }
+
+    @Benchmark
+    public int update() {
+        int events = world.step(autopilot(world));
+        if (world.isGameOver()) {
+            world.reset(++seed);
+            world.step(Input.START);
+        }
+        return events;
+    }
+
+    @Benchmark
+    public void checkCollision(Blackhole bh) {
+        EntityStore obstacles = onScreen.getObstacles();
+        for (int i = 0; i < obstacles.size(); i++) bh.consume(onScreen.checkCollision(obstacles.slot(i)));
+    }
+
+    @Benchmark
+    public void pixelCollision(Blackhole bh) {
+        EntityStore obstacles = standing.getObstacles();
+        for (int i = 0; i < obstacles.size(); i++) bh.consume(standing.checkCollision(obstacles.slot(i)));
+    }
+
+    @Benchmark
+    public void currentSprite(Blackhole bh) {
+        bh.consume(jumping.getSpriteKind());
+        bh.consume(jumping.getSpriteFrame());
+        bh.consume(jumping.getSpriteWidth());
+        bh.consume(jumping.getSpriteHeight());
+    }
+}
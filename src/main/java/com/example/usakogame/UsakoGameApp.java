@@ -1,17 +1,30 @@
 package com.example.usakogame;
 
+import com.example.usakogame.flappy.FlappyAutopilot;
 import com.example.usakogame.flappy.FlappyBirdGame;
+import com.example.usakogame.manager.AssetLoader;
+import com.example.usakogame.manager.AssetManager;
 import com.example.usakogame.manager.HighScoreManager;
+import com.example.usakogame.manager.SoundManager;
+import com.example.usakogame.render.LayeredCanvas;
+import com.example.usakogame.render.RenderStats;
+import com.example.usakogame.render.SpriteAtlas;
+import com.example.usakogame.runner.RunnerAutopilot;
 import com.example.usakogame.runner.RunnerGame;
+import com.example.usakogame.sim.Playfield;
+import com.example.usakogame.sim.Policy;
+import com.example.usakogame.sim.Replay;
+import com.example.usakogame.ui.LoadingScreen;
+import com.example.usakogame.ui.RankingList;
 import com.example.usakogame.ui.RankingScreen;
 import com.example.usakogame.ui.TitleScreen;
+import com.example.usakogame.ui.TitleThumbnails;
 import javafx.animation.AnimationTimer;
 import javafx.application.Application;
 import javafx.application.Platform;
 import javafx.geometry.Pos;
+import javafx.scene.Parent;
 import javafx.scene.Scene;
-import javafx.scene.canvas.Canvas;
-import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.control.*;
 import javafx.scene.layout.BorderPane;
 import javafx.scene.layout.HBox;
@@ -22,32 +35,73 @@ import javafx.scene.text.Font;
 import javafx.scene.text.FontWeight;
 import javafx.scene.image.ImageView;
 import javafx.scene.input.KeyCode;
+import javafx.scene.input.KeyEvent;
+import javafx.scene.input.MouseEvent;
 import javafx.stage.Stage;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
 
 public class UsakoGameApp extends Application {
 
-    public static final int WINDOW_WIDTH = 600;
-    public static final int WINDOW_HEIGHT = 600;
+    public static final int WINDOW_WIDTH = Playfield.WIDTH;
+    public static final int WINDOW_HEIGHT = Playfield.HEIGHT;
 
-    private Canvas canvas;
-    private GraphicsContext gc;
+    // Fixed-timestep simulation (independent of display refresh rate)
+    public static final int TICKS_PER_SECOND = 60;
+    private static final long TICK_NANOS = 1_000_000_000L / TICKS_PER_SECOND;
+    private static final int MAX_CATCH_UP_STEPS = 5;
+
+    // Attract mode: once the title screen has been left alone this long, the trained
+    // autopilots play (alternating games) until a key or click; 0 = never
+    private static final int DEMO_IDLE_TICKS = Integer.getInteger("usako.demoIdleSeconds", 30) * TICKS_PER_SECOND;
+    private static final int DEMO_END_PAUSE_TICKS = 2 * TICKS_PER_SECOND; // Crash shown before the next game
+
+    private LayeredCanvas layers;
     private AnimationTimer timer;
     private BorderPane root;
     private StackPane gameStack;
+    private Parent rankingScreen; // Shown ranking screen, rebuilt when another process adds runs
+    private String playerName = null; // Last name registered this session, for "my rank"
     private VBox overlayBox;
     private boolean isOverlayActive = false;
+    private long lastFrameTime = -1;
+    private long tickAccumulator = 0;
 
     // Game Mode Management
     private enum GameState {
-        TITLE, FLAPPY, RUN
+        TITLE, FLAPPY, RUN, DEMO
     }
     private GameState currentState = GameState.TITLE;
 
     private FlappyBirdGame flappyGame;
     private RunnerGame runnerGame;
 
+    private Parent titleScreen;
+    private int idleTicks = 0;
+    private boolean demoFlappy = false; // Game the demo is playing
+    private int demoOverTicks = 0;
+    private boolean pilotsLoaded = false;
+    private FlappyAutopilot flappyPilot; // null if no policy could be loaded
+    private RunnerAutopilot runnerPilot;
+
+    // Startup: assets decode in the background behind a progress screen
+    private AssetLoader assetLoader;
+    private AssetManager assetManager;
+    private TitleThumbnails titleThumbnails;
+    private String heldAssets = null; // Atlas of the game currently being played
+    private CompletableFuture<?> heldReady = CompletableFuture.completedFuture(null);
+    private GameState pendingStart = null; // Game waiting for its assets
+    private boolean titleShown = false;
+    private boolean startupLogged = false;
+
     @Override
     public void start(Stage stage) {
         root = new BorderPane();
@@ -56,9 +110,8 @@ public class UsakoGameApp extends Application {
         MenuBar menuBar = createMenuBar();
         root.setTop(menuBar);
 
-        // Setup Canvas and Overlay
-        canvas = new Canvas(WINDOW_WIDTH, WINDOW_HEIGHT);
-        gc = canvas.getGraphicsContext2D();
+        // Setup Canvas layers and Overlay
+        layers = new LayeredCanvas(WINDOW_WIDTH, WINDOW_HEIGHT);
         
         overlayBox = new VBox(15);
         overlayBox.setAlignment(Pos.CENTER);
@@ -66,14 +119,48 @@ public class UsakoGameApp extends Application {
         overlayBox.setVisible(false);
         overlayBox.setMaxSize(400, 500);
 
-        gameStack = new StackPane(canvas, overlayBox);
+        gameStack = new StackPane(layers.getNode(), overlayBox);
         root.setCenter(gameStack);
 
-        // Operations
+        // Operations (sprites are decoded in parallel; title thumbnails first)
+        SoundManager.init(); // One audio line for the session
+        // Runs merged from another game process on this machine
+        HighScoreManager.setOnExternalChange(() -> Platform.runLater(this::onScoresChanged));
+        assetLoader = new AssetLoader(SpriteAtlas.displayScale());
+        titleThumbnails = new TitleThumbnails();
         flappyGame = new FlappyBirdGame(this);
         runnerGame = new RunnerGame(this);
+        root.setCenter(LoadingScreen.create(assetLoader));
+
+        assetManager = new AssetManager(assetLoader);
+        assetManager.register("title", titleThumbnails.atlas);
+        assetManager.register("flappy", flappyGame.atlas);
+        assetManager.register("runner", runnerGame.atlas);
+        RenderStats.setAssetGauges(assetManager::getCurrentBytes, assetManager::getPeakBytes);
+
+        // Title thumbnails stay loaded for the whole session; game sets load when played
+        assetManager.acquire("title").whenComplete((a, e) -> Platform.runLater(this::showTitleScreen));
+        assetManager.prefetch("flappy");
+        assetManager.prefetch("runner");
 
         Scene scene = new Scene(root);
+
+        // Any key or click restarts the attract-mode countdown and ends a running demo
+        scene.addEventFilter(KeyEvent.KEY_PRESSED, e -> {
+            idleTicks = 0;
+            if (currentState == GameState.DEMO) {
+                showTitleScreen();
+                e.consume();
+            }
+        });
+        scene.addEventFilter(MouseEvent.MOUSE_PRESSED, e -> {
+            idleTicks = 0;
+            if (currentState == GameState.DEMO) {
+                showTitleScreen();
+                e.consume();
+            }
+        });
+        scene.addEventFilter(MouseEvent.MOUSE_MOVED, e -> idleTicks = 0);
         
         // Input Handling
         scene.setOnKeyPressed(event -> {
@@ -85,7 +172,7 @@ public class UsakoGameApp extends Application {
             if (currentState == GameState.RUN) runnerGame.handleKeyRelease(event.getCode());
         });
         
-        canvas.setOnMouseClicked(event -> {
+        layers.getNode().setOnMouseClicked(event -> {
              if (isOverlayActive) return; // Ignore game clicks if overlay is on
              if (currentState == GameState.FLAPPY) flappyGame.handleInput();
              else if (currentState == GameState.RUN) runnerGame.handleInput();
@@ -99,13 +186,36 @@ public class UsakoGameApp extends Application {
         timer = new AnimationTimer() {
             @Override
             public void handle(long now) {
-                render();
-                update();
+                if (!startupLogged && titleShown) {
+                    // First pulse after the title went up: the first interactive frame
+                    startupLogged = true;
+                    logColdStart();
+                }
+                if (lastFrameTime < 0) lastFrameTime = now;
+                tickAccumulator += now - lastFrameTime;
+                lastFrameTime = now;
+
+                // Run as many 60Hz ticks as real time demands, but never spiral after a long stall
+                int steps = 0;
+                while (tickAccumulator >= TICK_NANOS && steps < MAX_CATCH_UP_STEPS) {
+                    update();
+                    tickAccumulator -= TICK_NANOS;
+                    steps++;
+                }
+                if (tickAccumulator >= TICK_NANOS) tickAccumulator %= TICK_NANOS;
+
+                render((double) tickAccumulator / TICK_NANOS);
+                RenderStats.endFrame(now);
             }
         };
         timer.start();
-        
-        showTitleScreen();
+    }
+
+    private void logColdStart() {
+        long ms = ProcessHandle.current().info().startInstant()
+                .map(t -> Duration.between(t, Instant.now()).toMillis())
+                .orElse(-1L);
+        System.out.println("Cold start: first interactive frame " + ms + " ms after JVM start");
     }
 
     private MenuBar createMenuBar() {
@@ -130,42 +240,151 @@ public class UsakoGameApp extends Application {
 
     public void showTitleScreen() {
         currentState = GameState.TITLE;
+        pendingStart = null;
+        holdAssets(null);
+        SoundManager.stopMusic();
         overlayBox.setVisible(false);
         isOverlayActive = false;
+        idleTicks = 0;
         
-        root.setCenter(TitleScreen.create(this)); 
+        titleScreen = TitleScreen.create(this);
+        root.setCenter(titleScreen); 
+        titleShown = true;
     }
 
     public void showRankingScreen() {
-        root.setCenter(RankingScreen.create(this));
+        holdAssets(null);
+        SoundManager.stopMusic();
+        rankingScreen = RankingScreen.create(this);
+        root.setCenter(rankingScreen);
+    }
+
+    public String getPlayerName() {
+        return playerName;
+    }
+
+    private void onScoresChanged() {
+        if (rankingScreen != null && root.getCenter() == rankingScreen) showRankingScreen();
     }
 
     public void startFlappyBird() {
-        currentState = GameState.FLAPPY;
-        overlayBox.setVisible(false);
-        isOverlayActive = false;
-        root.setCenter(gameStack); 
-        canvas.requestFocus();
+        CompletableFuture<?> ready = holdAssets("flappy");
+        if (!ready.isDone()) {
+            waitForAssets(GameState.FLAPPY, ready, this::startFlappyBird);
+            return;
+        }
+        showGameCanvas(GameState.FLAPPY);
         flappyGame.resetGame();
     }
     
     public void startRunnerGame() {
-        currentState = GameState.RUN;
+        CompletableFuture<?> ready = holdAssets("runner");
+        if (!ready.isDone()) {
+            waitForAssets(GameState.RUN, ready, this::startRunnerGame);
+            return;
+        }
+        showGameCanvas(GameState.RUN);
+        runnerGame.resetGame();
+    }
+
+    // Plays a recorded run back in its game, through the same update and render path
+    public void startReplay(Replay replay) {
+        boolean flappy = replay.mode == Replay.MODE_FLAPPY;
+        GameState state = flappy ? GameState.FLAPPY : GameState.RUN;
+        CompletableFuture<?> ready = holdAssets(flappy ? "flappy" : "runner");
+        if (!ready.isDone()) {
+            waitForAssets(state, ready, () -> startReplay(replay));
+            return;
+        }
+        showGameCanvas(state);
+        if (flappy) flappyGame.startReplay(replay);
+        else runnerGame.startReplay(replay);
+    }
+
+    // One autopilot game; update() moves on to the other game after it crashes
+    private void startDemo(boolean flappy) {
+        idleTicks = 0;
+        if (!pilotsLoaded) {
+            pilotsLoaded = true;
+            Policy f = loadPolicy("flappy");
+            Policy r = loadPolicy("runner");
+            try {
+                if (f != null) flappyPilot = new FlappyAutopilot(f);
+                if (r != null) runnerPilot = new RunnerAutopilot(r);
+            } catch (IllegalArgumentException e) {
+                System.err.println("Autopilot disabled: " + e.getMessage());
+            }
+        }
+        if (flappy ? flappyPilot == null : runnerPilot == null) flappy = !flappy;
+        if (flappy ? flappyPilot == null : runnerPilot == null) return; // No policy at all
+
+        boolean game = flappy;
+        CompletableFuture<?> ready = holdAssets(flappy ? "flappy" : "runner");
+        if (!ready.isDone()) {
+            waitForAssets(GameState.DEMO, ready, () -> startDemo(game));
+            return;
+        }
+        demoFlappy = flappy;
+        demoOverTicks = 0;
+        showGameCanvas(GameState.DEMO);
+        if (flappy) flappyGame.startDemo(flappyPilot);
+        else runnerGame.startDemo(runnerPilot);
+    }
+
+    // A policy trained with AutopilotTrainer: the data directory's copy if there is one,
+    // else the shipped one; null if neither loads
+    private static Policy loadPolicy(String game) {
+        Path local = HighScoreManager.getDataDir().resolve(game + ".policy");
+        try (InputStream in = Files.exists(local) ? Files.newInputStream(local)
+                : UsakoGameApp.class.getResourceAsStream("autopilot/" + game + ".policy")) {
+            return in == null ? null : Policy.read(in);
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Failed to load the " + game + " autopilot: " + e.getMessage());
+            return null;
+        }
+    }
+
+    // Puts the game canvas up for a game whose assets are loaded
+    private void showGameCanvas(GameState state) {
+        pendingStart = null;
+        currentState = state;
         overlayBox.setVisible(false);
         isOverlayActive = false;
         root.setCenter(gameStack);
-        canvas.requestFocus();
-        runnerGame.resetGame();
+        layers.invalidateAll();
+        layers.getNode().requestFocus();
+    }
+
+    // Switches the game atlas we hold a reference to (null = none), releasing the previous one
+    private CompletableFuture<?> holdAssets(String name) {
+        if (Objects.equals(heldAssets, name)) return heldReady;
+        if (heldAssets != null) assetManager.release(heldAssets);
+        heldAssets = name;
+        heldReady = name == null ? CompletableFuture.completedFuture(null) : assetManager.acquire(name);
+        return heldReady;
+    }
+
+    // Shows the progress screen until a game's own assets are decoded, then starts it
+    // (unless the player went back to the title meanwhile)
+    private void waitForAssets(GameState mode, CompletableFuture<?> ready, Runnable start) {
+        pendingStart = mode;
+        root.setCenter(LoadingScreen.create(assetLoader));
+        ready.whenComplete((a, e) -> Platform.runLater(() -> {
+            if (pendingStart == mode) start.run();
+        }));
     }
 
     // ==========================================
     // GAME OVER OVERLAY
     // ==========================================
-    public void showGameOverOverlay(String gameMode, int currentScore) {
-        showGameOverOverlay(gameMode, currentScore, false);
+    // Every finished run is logged with its replay; the name typed here only adds it to the ranking
+    public void showGameOverOverlay(String gameMode, int currentScore, long durationMs, Replay replay) {
+        long runId = HighScoreManager.recordRun(gameMode, currentScore, durationMs);
+        HighScoreManager.saveReplay(runId, replay.toBytes());
+        showGameOverOverlay(gameMode, currentScore, runId, replay, false);
     }
 
-    private void showGameOverOverlay(String gameMode, int currentScore, boolean isSubmitted) {
+    private void showGameOverOverlay(String gameMode, int currentScore, long runId, Replay replay, boolean isSubmitted) {
         isOverlayActive = true;
         overlayBox.getChildren().clear();
         overlayBox.setVisible(true);
@@ -187,21 +406,11 @@ public class UsakoGameApp extends Application {
         Label rankTitle = new Label("--- RANKING ---");
         rankTitle.setTextFill(Color.YELLOW);
         rankTitle.setFont(Font.font("Verdana", FontWeight.BOLD, 18));
-        rankingBox.getChildren().add(rankTitle);
-        
-        if (tops.isEmpty()) {
-            Label l = new Label("No records yet");
-            l.setTextFill(Color.LIGHTGRAY);
-            rankingBox.getChildren().add(l);
-        } else {
-            for (int i=0; i<tops.size(); i++) {
-                HighScoreManager.ScoreEntry e = tops.get(i);
-                Label l = new Label((i+1) + ". " + e.name + " : " + e.score);
-                l.setTextFill(Color.WHITE);
-                l.setFont(Font.font("Verdana", 14));
-                rankingBox.getChildren().add(l);
-            }
-        }
+        // Whole ranking, scrollable; shows this run once it has been registered
+        RankingList rankingList = new RankingList(5, false);
+        rankingList.setFilter(gameMode, null, Long.MIN_VALUE, Long.MAX_VALUE, null);
+        if (isSubmitted) rankingList.jumpToRun(runId);
+        rankingBox.getChildren().addAll(rankTitle, rankingList.getNode());
         
         overlayBox.getChildren().addAll(title, scoreLabel, rankingBox);
         
@@ -229,8 +438,9 @@ public class UsakoGameApp extends Application {
                 String name = nameField.getText().trim();
                 if (name.isEmpty()) name = "NoName";
                 
-                HighScoreManager.submitScore(gameMode, name, currentScore);
-                showGameOverOverlay(gameMode, currentScore, true);
+                playerName = name;
+                HighScoreManager.nameRun(runId, name);
+                showGameOverOverlay(gameMode, currentScore, runId, replay, true);
             });
             
             inputBox.getChildren().addAll(nameField, registerBtn);
@@ -260,33 +470,78 @@ public class UsakoGameApp extends Application {
             }
         });
         
+        Button replayBtn = new Button("リプレイ");
+        replayBtn.setOnAction(e -> startReplay(replay));
+
         Button titleBtn = new Button("タイトルへ");
         titleBtn.setOnAction(e -> showTitleScreen());
         
-        btnBox.getChildren().addAll(retryBtn, titleBtn);
+        btnBox.getChildren().addAll(retryBtn, replayBtn, titleBtn);
         
         overlayBox.getChildren().add(btnBox);
     }
 
+    // End of a replay: whether it reproduced the recorded run exactly
+    public void showReplayEndOverlay(Replay replay, int score, long checksum) {
+        isOverlayActive = true;
+        overlayBox.getChildren().clear();
+        overlayBox.setVisible(true);
+
+        Label title = new Label("REPLAY END");
+        title.setTextFill(Color.YELLOW);
+        title.setFont(Font.font("Verdana", FontWeight.BOLD, 40));
+
+        Label scoreLabel = new Label("Score: " + score);
+        scoreLabel.setTextFill(Color.WHITE);
+        scoreLabel.setFont(Font.font("Verdana", FontWeight.BOLD, 24));
+
+        boolean same = score == replay.score && checksum == replay.checksum;
+        Label checkLabel = new Label(same ? "記録と一致しました" : "記録と一致しません (記録: " + replay.score + ")");
+        checkLabel.setTextFill(same ? Color.LIGHTGREEN : Color.ORANGERED);
+        checkLabel.setFont(Font.font("Verdana", FontWeight.BOLD, 14));
+
+        HBox btnBox = new HBox(20);
+        btnBox.setAlignment(Pos.CENTER);
+        Button againBtn = new Button("もう一度見る");
+        againBtn.setOnAction(e -> startReplay(replay));
+        Button titleBtn = new Button("タイトルへ");
+        titleBtn.setOnAction(e -> showTitleScreen());
+        btnBox.getChildren().addAll(againBtn, titleBtn);
+
+        overlayBox.getChildren().addAll(title, scoreLabel, checkLabel, btnBox);
+    }
+
     private void update() {
-        if (currentState == GameState.TITLE) return; 
+        if (currentState == GameState.TITLE) {
+            if (DEMO_IDLE_TICKS > 0 && root.getCenter() == titleScreen && ++idleTicks >= DEMO_IDLE_TICKS) startDemo(demoFlappy);
+            return;
+        }
 
-        if (currentState == GameState.FLAPPY) {
+        if (currentState == GameState.DEMO) {
+            boolean over;
+            if (demoFlappy) {
+                flappyGame.update();
+                over = flappyGame.getWorld().isGameOver();
+            } else {
+                runnerGame.update();
+                over = runnerGame.getWorld().isGameOver();
+            }
+            if (over && ++demoOverTicks >= DEMO_END_PAUSE_TICKS) startDemo(!demoFlappy);
+        } else if (currentState == GameState.FLAPPY) {
             flappyGame.update();
         } else if (currentState == GameState.RUN) {
             runnerGame.update();
         }
     }
 
-    private void render() {
+    // alpha: fraction of a tick elapsed since the last update, used to interpolate positions
+    private void render(double alpha) {
         if (currentState == GameState.TITLE) return;
 
-        gc.clearRect(0, 0, WINDOW_WIDTH, WINDOW_HEIGHT);
-
-        if (currentState == GameState.FLAPPY) {
-            flappyGame.render(gc);
-        } else if (currentState == GameState.RUN) {
-            runnerGame.render(gc);
+        if (currentState == GameState.FLAPPY || (currentState == GameState.DEMO && demoFlappy)) {
+            flappyGame.render(layers, alpha);
+        } else if (currentState == GameState.RUN || currentState == GameState.DEMO) {
+            runnerGame.render(layers, alpha);
         }
     }
 
@@ -331,6 +586,12 @@ public class UsakoGameApp extends Application {
         alert.showAndWait();
     }
 
+    @Override
+    public void stop() {
+        SoundManager.shutdown();
+        HighScoreManager.flush();
+    }
+
     public static void main(String[] args) {
         launch();
     }
@@ -338,4 +599,5 @@ public class UsakoGameApp extends Application {
     // Getters for Games to access resources if needed by TitleScreen
     public FlappyBirdGame getFlappyGame() { return flappyGame; }
     public RunnerGame getRunnerGame() { return runnerGame; }
+    public TitleThumbnails getTitleThumbnails() { return titleThumbnails; }
 }
@@ -0,0 +1,53 @@
+package com.example.usakogame.flappy;
+
+import com.example.usakogame.sim.EntityStore;
+import com.example.usakogame.sim.Input;
+import com.example.usakogame.sim.Playfield;
+import com.example.usakogame.sim.Policy;
+
+// Plays Flappy with a trained Policy (see AutopilotTrainer in the benchmarks): reads the
+// bird and the next two gaps as features and decides whether to flap. decide() does not
+// allocate.
+public class FlappyAutopilot {
+    public static final int FEATURES = 6;
+    public static final int OUTPUTS = 1; // Flap
+
+    private final Policy policy;
+    private final double[] features = new double[FEATURES];
+    private final double[] out = new double[OUTPUTS];
+
+    public FlappyAutopilot(Policy policy) {
+        if (policy.inputs != FEATURES || policy.outputs != OUTPUTS) throw new IllegalArgumentException("Not a Flappy policy");
+        this.policy = policy;
+    }
+
+    // Input mask for the next tick; starts a waiting game
+    public int decide(FlappyWorld w) {
+        features(w, features);
+        policy.evaluate(features, out);
+        int input = w.isRunning() ? Input.NONE : Input.START;
+        if (out[0] > 0) input |= Input.JUMP;
+        return input;
+    }
+
+    // Roughly unit-scaled: positions / screen size, gaps relative to the bird's centre
+    static void features(FlappyWorld w, double[] f) {
+        double birdCenter = w.getBirdY() + w.getBirdHeight() / 2;
+        f[0] = birdCenter / Playfield.HEIGHT;
+        f[1] = w.getBirdVelocity() / 10;
+        int n = 0;
+        EntityStore pipes = w.getPipes();
+        for (int i = 0; i < pipes.size() && n < 2; i++) {
+            int s = pipes.slot(i);
+            if (pipes.x[s] + FlappyWorld.PIPE_WIDTH < FlappyWorld.BIRD_X) continue; // Already passed
+            f[2 + n * 2] = (pipes.x[s] - FlappyWorld.BIRD_X) / Playfield.WIDTH;
+            f[3 + n * 2] = (pipes.h[s] + FlappyWorld.PIPE_GAP / 2 - birdCenter) / Playfield.HEIGHT;
+            n++;
+        }
+        for (; n < 2; n++) {
+            // No pipe yet: far away, gap at mid-screen
+            f[2 + n * 2] = 1.5;
+            f[3 + n * 2] = (Playfield.HEIGHT / 2.0 - birdCenter) / Playfield.HEIGHT;
+        }
+    }
+}
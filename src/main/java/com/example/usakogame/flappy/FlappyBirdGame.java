@@ -3,80 +3,120 @@ package com.example.usakogame.flappy;
 import com.example.usakogame.UsakoGameApp;
 import com.example.usakogame.manager.HighScoreManager;
 import com.example.usakogame.manager.SoundManager;
+import com.example.usakogame.render.HudLabel;
+import com.example.usakogame.render.LayeredCanvas;
+import com.example.usakogame.render.RenderStats;
+import com.example.usakogame.render.SpriteAtlas;
+import com.example.usakogame.render.TextImage;
+import com.example.usakogame.sim.EntityStore;
+import com.example.usakogame.sim.Input;
+import com.example.usakogame.sim.Replay;
+import com.example.usakogame.sim.ReplayRecorder;
+import com.example.usakogame.sim.SimEvent;
 import javafx.scene.canvas.GraphicsContext;
-import javafx.scene.image.Image;
 import javafx.scene.input.KeyCode;
 import javafx.scene.paint.Color;
 import javafx.scene.text.Font;
 import javafx.scene.text.FontWeight;
-import javafx.scene.text.Text;
-
-import java.util.ArrayList;
-import java.util.Iterator;
-import java.util.List;
-import java.util.Random;
 
 public class FlappyBirdGame {
-    private static final double GRAVITY = 0.6;
-    private static final double JUMP_STRENGTH = -10;
-    private static final double PIPE_SPEED = 3;
-    private static final double PIPE_WIDTH = 60;
-    private static final double PIPE_GAP = 230; 
-    private static final int SPAWN_INTERVAL = 110;
+    // Render resources are created once; render() allocates nothing per frame
+    private static final Color PIPE_COLOR = Color.web("#74BF2E");
+
+    // HUD and instructions are pre-rasterized (see TextImage / DigitFont)
+    private final HudLabel scoreLabel = new HudLabel(Font.font("Verdana", FontWeight.BOLD, 24), Color.WHITE, "Score: ", "");
+    private final HudLabel highScoreLabel = new HudLabel(Font.font("Verdana", FontWeight.BOLD, 18), Color.WHITE, "High Score: ", "");
+    private final TextImage startText = new TextImage("スペース/上矢印でスタート", Font.font("Verdana", FontWeight.BOLD, 30), Color.WHITE);
+    private final TextImage escText = new TextImage("ESCでタイトルへ", Font.font("Verdana", FontWeight.BOLD, 20), Color.WHITE);
+    private final HudLabel replayLabel = new HudLabel(Font.font("Verdana", FontWeight.BOLD, 20), Color.RED, "REPLAY x", "");
+    private final TextImage replayHint = new TextImage("←/→: 速度  ESC: タイトルへ", Font.font("Verdana", FontWeight.BOLD, 18), Color.WHITE);
+    private final TextImage demoText = new TextImage("DEMO PLAY", Font.font("Verdana", FontWeight.BOLD, 30), Color.ORANGE);
+    private final TextImage demoHint = new TextImage("何かキーを押してください", Font.font("Verdana", FontWeight.BOLD, 20), Color.WHITE);
 
     private final UsakoGameApp app;
-    
-    private boolean isRunning = false;
-    private boolean isGameOver = false;
-    private int score = 0;
+    private final FlappyWorld world;
+
     private int highScore = 0;
-    private int ticks = 0;
-    
-    private double birdY;
-    private double birdVelocity = 0;
-    private final double birdX = 100;
-    private double birdDisplayWidth = 40;
-    private double birdDisplayHeight = 40;
-    
-    private List<Pipe> pipes = new ArrayList<>();
-    private Random random = new Random();
+    // What the playfield/HUD layers currently show, to skip redrawing unchanged layers
+    private boolean playfieldDirty = true;
+    private int drawnScore = -1;
+    private int drawnHighScore = -1;
+    private boolean drawnStart = false;
+    private int drawnSpeed = -1;
+
+    private int pendingInput = Input.NONE;
+
+    // Every run is recorded from its reset; a replay feeds its masks through the same step
+    private final ReplayRecorder recorder = new ReplayRecorder();
+    private Replay replay = null;
+    private Replay.Cursor replayCursor;
+    private int replaySpeed = 1; // Ticks per update while replaying (fast-forward)
+    private FlappyAutopilot demo = null; // Attract mode: the autopilot plays, nothing is recorded
     
-    public Image birdNormal, birdJump;
+    // Frame ids into atlas (see SpriteAtlas); loaded and unloaded by AssetManager
+    public SpriteAtlas atlas;
+    public int birdNormal = -1, birdJump = -1;
 
     public FlappyBirdGame(UsakoGameApp app) {
         this.app = app;
-        loadAssets();
+        this.world = FlappyWorld.withShippedSprites(System.nanoTime());
+        registerAssets();
     }
 
-    private void loadAssets() {
-        try {
-            birdNormal = new Image(getClass().getResourceAsStream("/com/example/usakogame/usako_normal.png"));
-            birdJump = new Image(getClass().getResourceAsStream("/com/example/usakogame/usako_jump.png"));
-            
-            if (birdNormal != null) {
-                double ratio = birdNormal.getWidth() / birdNormal.getHeight();
-                birdDisplayWidth = 40;
-                birdDisplayHeight = 40 / ratio;
-            }
-        } catch (Exception e) {
-            System.err.println("FlappyAssets Error: " + e.getMessage());
-        }
+    private void registerAssets() {
+        // Both frames are drawn in the bird's box; decode them at exactly that size
+        atlas = new SpriteAtlas();
+        birdNormal = atlas.add("/com/example/usakogame/usako_normal.png", world.getBirdWidth(), world.getBirdHeight());
+        birdJump = atlas.add("/com/example/usakogame/usako_jump.png", world.getBirdWidth(), world.getBirdHeight());
     }
 
     public void resetGame() {
-        birdY = UsakoGameApp.WINDOW_HEIGHT / 2.0;
-        birdVelocity = 0;
-        score = 0;
+        long seed = System.nanoTime();
+        world.reset(seed);
+        recorder.start(Replay.MODE_FLAPPY, seed);
+        replay = null;
+        demo = null;
+        replaySpeed = 1;
+        playfieldDirty = true;
         highScore = HighScoreManager.getHighScore("flappy");
-        ticks = 0;
-        pipes.clear();
-        isRunning = false;
-        isGameOver = false;
+        pendingInput = Input.NONE;
+    }
+
+    // Plays a recorded run back from its seed; the keyboard only controls the playback
+    public void startReplay(Replay r) {
+        world.reset(r.seed);
+        recorder.cancel();
+        replay = r;
+        demo = null;
+        replayCursor = r.cursor();
+        replaySpeed = 1;
+        playfieldDirty = true;
+        highScore = HighScoreManager.getHighScore("flappy");
+        pendingInput = Input.NONE;
+    }
+
+    // Attract mode: a fresh game played by the autopilot, silent and unrecorded (the app
+    // leaves it on any key)
+    public void startDemo(FlappyAutopilot pilot) {
+        world.reset(System.nanoTime());
+        recorder.cancel();
+        replay = null;
+        demo = pilot;
+        replaySpeed = 1;
+        playfieldDirty = true;
+        highScore = HighScoreManager.getHighScore("flappy");
+        pendingInput = Input.NONE;
     }
 
     public void handleKeyPress(KeyCode code) {
+        if (replay != null) {
+            if (code == KeyCode.ESCAPE) app.showTitleScreen();
+            if (code == KeyCode.RIGHT) replaySpeed = Math.min(replaySpeed * 4, Replay.MAX_SPEED);
+            if (code == KeyCode.LEFT) replaySpeed = Math.max(replaySpeed / 4, 1);
+            return;
+        }
         if (code == KeyCode.ESCAPE) {
-             if (isGameOver || !isRunning) {
+             if (world.isGameOver() || !world.isRunning()) {
                  app.showTitleScreen();
                  return;
              }
@@ -87,119 +127,138 @@ public class FlappyBirdGame {
     }
 
     public void handleInput() {
-        if (!isRunning && !isGameOver) {
-            isRunning = true;
-            birdVelocity = JUMP_STRENGTH;
-            SoundManager.playJump();
-        } else if (isRunning) {
-            birdVelocity = JUMP_STRENGTH;
-            SoundManager.playJump();
-        } else if (isGameOver) {
+        if (replay != null) return;
+        if (world.isGameOver()) {
             resetGame();
+        } else {
+            // Applied at the start of the next simulation tick
+            pendingInput |= Input.JUMP;
         }
     }
 
     public void update() {
-         if (!isRunning && !isGameOver) {
-             birdY = (UsakoGameApp.WINDOW_HEIGHT / 2.0) + Math.sin(System.currentTimeMillis() / 300.0) * 10;
-             return;
+         if (demo != null) {
+             step(demo.decide(world));
+         } else if (replay == null) {
+             int input = pendingInput;
+             pendingInput = Input.NONE;
+             recorder.record(input);
+             step(input);
+         } else {
+             // Fast-forward just runs more ticks per frame; sounds are skipped past real speed
+             for (int i = 0; i < replaySpeed && !world.isGameOver(); i++) step(replayCursor.next());
          }
-         if (isGameOver) return;
-
-         ticks++;
-         birdVelocity += GRAVITY;
-         birdY += birdVelocity;
-
-         if (ticks % SPAWN_INTERVAL == 0) spawnPipe();
-
-         Iterator<Pipe> iter = pipes.iterator();
-         while (iter.hasNext()) {
-             Pipe p = iter.next();
-             p.x -= PIPE_SPEED;
-             if (!p.scored && p.x + PIPE_WIDTH < birdX) {
-                 score++;
-                 p.scored = true;
-                 SoundManager.playScore();
+         // Music speeds up by 2 BPM per pipe passed
+         SoundManager.setMusic(world.isRunning() && !world.isGameOver() && replaySpeed == 1 && demo == null, 110 + 2 * world.getScore());
+    }
+
+    private void step(int input) {
+         int events = world.step(input);
+         boolean sound = demo == null && (replay == null || replaySpeed == 1);
+
+         if ((events & SimEvent.JUMP) != 0 && sound) SoundManager.playJump();
+         if ((events & SimEvent.SCORE) != 0 && sound) SoundManager.playScore(world.getScore() - 1); // Pitch climbs with each pipe
+         if ((events & SimEvent.GAME_OVER) != 0) {
+             playfieldDirty = true; // Draw the final positions once
+             if (sound) SoundManager.playGameOver();
+             // Show Overlay
+             if (demo != null) {
+                 // The app starts the next demo game after a pause
+             } else if (replay != null) {
+                 app.showReplayEndOverlay(replay, world.getScore(), world.checksum());
+             } else {
+                 Replay run = recorder.finish(world.getScore(), world.checksum());
+                 app.showGameOverOverlay("flappy", world.getScore(), world.getTicks() * 1000L / UsakoGameApp.TICKS_PER_SECOND, run);
              }
-             if (p.x + PIPE_WIDTH < -10) iter.remove();
-             if (checkCollision(p)) gameOver();
          }
-
-         if (birdY < 0 || birdY + birdDisplayHeight > UsakoGameApp.WINDOW_HEIGHT) gameOver();
     }
 
-    private boolean checkCollision(Pipe p) {
-        double bx = birdX + 2;
-        double by = birdY + 2;
-        double bw = birdDisplayWidth - 4;
-        double bh = birdDisplayHeight - 4;
-        if (bx < p.x + PIPE_WIDTH && bx + bw > p.x && by < p.topHeight && by + bh > 0) return true;
-        if (bx < p.x + PIPE_WIDTH && bx + bw > p.x && by < UsakoGameApp.WINDOW_HEIGHT && by + bh > p.topHeight + PIPE_GAP) return true;
-        return false;
-    }
+    public FlappyWorld getWorld() { return world; }
 
-    private void spawnPipe() {
-        double minHeight = 50;
-        double maxHeight = UsakoGameApp.WINDOW_HEIGHT - PIPE_GAP - minHeight;
-        double h = minHeight + random.nextDouble() * (maxHeight - minHeight);
-        pipes.add(new Pipe(UsakoGameApp.WINDOW_WIDTH, h));
-    }
+    // Each layer is redrawn only when its content changed (see LayeredCanvas)
+    public void render(LayeredCanvas layers, double alpha) {
+        if (layers.background.isDirty()) renderBackground(layers.background.redraw());
 
-    private void gameOver() {
-        isGameOver = true;
-        isRunning = false;
-        SoundManager.playGameOver();
-        // Show Overlay
-        app.showGameOverOverlay("flappy", score);
+        // A finished run no longer moves, so it is drawn once at its final positions
+        if (world.isGameOver()) alpha = 1;
+        if (!world.isGameOver() || playfieldDirty || layers.playfield.isDirty()) {
+            renderPlayfield(layers.playfield.redraw(), alpha);
+            playfieldDirty = false;
+        }
+
+        boolean showStart = !world.isRunning() && !world.isGameOver() && replay == null && demo == null;
+        int speed = replay == null ? 0 : replaySpeed;
+        if (layers.hud.isDirty() || world.getScore() != drawnScore || highScore != drawnHighScore || showStart != drawnStart
+                || speed != drawnSpeed) {
+            drawnScore = world.getScore();
+            drawnHighScore = highScore;
+            drawnStart = showStart;
+            drawnSpeed = speed;
+            renderHud(layers.hud.redraw(), showStart, speed);
+        }
+        // Overlay handled by App
     }
 
-    public void render(GraphicsContext gc) {
+    private void renderBackground(GraphicsContext gc) {
         gc.setFill(Color.SKYBLUE);
         gc.fillRect(0, 0, UsakoGameApp.WINDOW_WIDTH, UsakoGameApp.WINDOW_HEIGHT);
+        RenderStats.count(1, UsakoGameApp.WINDOW_WIDTH * UsakoGameApp.WINDOW_HEIGHT);
+    }
 
-        for (Pipe p : pipes) {
-            gc.setFill(Color.web("#74BF2E"));
-            gc.fillRect(p.x, 0, PIPE_WIDTH, p.topHeight);
-            gc.fillRect(p.x, p.topHeight + PIPE_GAP, PIPE_WIDTH, UsakoGameApp.WINDOW_HEIGHT - (p.topHeight + PIPE_GAP));
-            gc.setStroke(Color.BLACK);
-            gc.setLineWidth(2);
-            gc.strokeRect(p.x, 0, PIPE_WIDTH, p.topHeight);
-            gc.strokeRect(p.x, p.topHeight + PIPE_GAP, PIPE_WIDTH, UsakoGameApp.WINDOW_HEIGHT - (p.topHeight + PIPE_GAP));
-             gc.fillRect(p.x - 2, p.topHeight - 20, PIPE_WIDTH + 4, 20);
-             gc.strokeRect(p.x - 2, p.topHeight - 20, PIPE_WIDTH + 4, 20);
-             gc.fillRect(p.x - 2, p.topHeight + PIPE_GAP, PIPE_WIDTH + 4, 20);
-             gc.strokeRect(p.x - 2, p.topHeight + PIPE_GAP, PIPE_WIDTH + 4, 20);
+    private void renderPlayfield(GraphicsContext gc, double alpha) {
+        gc.setStroke(Color.BLACK);
+        gc.setLineWidth(2);
+        gc.setFill(PIPE_COLOR);
+        EntityStore pipes = world.getPipes();
+        for (int run = 0; run < 2; run++) {
+            for (int s = pipes.runStart(run), end = pipes.runEnd(run); s < end; s++) {
+                double px = pipes.prevX[s] + (pipes.x[s] - pipes.prevX[s]) * alpha;
+                double topHeight = pipes.h[s];
+                double bottomY = topHeight + FlappyWorld.PIPE_GAP;
+                gc.fillRect(px, 0, FlappyWorld.PIPE_WIDTH, topHeight);
+                gc.fillRect(px, bottomY, FlappyWorld.PIPE_WIDTH, UsakoGameApp.WINDOW_HEIGHT - bottomY);
+                gc.strokeRect(px, 0, FlappyWorld.PIPE_WIDTH, topHeight);
+                gc.strokeRect(px, bottomY, FlappyWorld.PIPE_WIDTH, UsakoGameApp.WINDOW_HEIGHT - bottomY);
+                 gc.fillRect(px - 2, topHeight - 20, FlappyWorld.PIPE_WIDTH + 4, 20);
+                 gc.strokeRect(px - 2, topHeight - 20, FlappyWorld.PIPE_WIDTH + 4, 20);
+                 gc.fillRect(px - 2, bottomY, FlappyWorld.PIPE_WIDTH + 4, 20);
+                 gc.strokeRect(px - 2, bottomY, FlappyWorld.PIPE_WIDTH + 4, 20);
+                // Two pipe bodies and two caps, each filled and stroked
+                RenderStats.count(8, 2 * FlappyWorld.PIPE_WIDTH * (UsakoGameApp.WINDOW_HEIGHT - FlappyWorld.PIPE_GAP) + 160 * (FlappyWorld.PIPE_WIDTH + 4));
+            }
         }
 
-        Image currentBird = birdNormal;
-        if (birdVelocity < 0 && birdJump != null) currentBird = birdJump;
-        else if (birdNormal != null) currentBird = birdNormal;
+        double birdX = FlappyWorld.BIRD_X;
+        double birdDisplayWidth = world.getBirdWidth();
+        double birdDisplayHeight = world.getBirdHeight();
+        int currentBird = birdNormal;
+        if (world.getBirdVelocity() < 0 && atlas.has(birdJump)) currentBird = birdJump;
         
-        if (currentBird != null) gc.drawImage(currentBird, birdX, birdY, birdDisplayWidth, birdDisplayHeight);
-        else { gc.setFill(Color.YELLOW); gc.fillRect(birdX, birdY, birdDisplayWidth, birdDisplayHeight); }
-
-        gc.setFill(Color.WHITE);
-        gc.setFont(Font.font("Verdana", FontWeight.BOLD, 24));
-        gc.fillText("Score: " + score, UsakoGameApp.WINDOW_WIDTH - 220, 50);
-        gc.setFont(Font.font("Verdana", FontWeight.BOLD, 18));
-        gc.fillText("High Score: " + highScore, UsakoGameApp.WINDOW_WIDTH - 220, 80);
-
-        if (!isRunning && !isGameOver) {
-            gc.setFill(Color.WHITE);
-            Font f = Font.font("Verdana", FontWeight.BOLD, 30);
-            gc.setFont(f);
-            String text = "スペース/上矢印でスタート";
-            Text t = new Text(text); t.setFont(f);
-            double w = t.getLayoutBounds().getWidth();
-            gc.fillText(text, (UsakoGameApp.WINDOW_WIDTH - w) / 2, 300);
-            
-            Font fEsc = Font.font("Verdana", FontWeight.BOLD, 20);
-            gc.setFont(fEsc);
-            String tEsc = "ESCでタイトルへ";
-            Text txtEsc = new Text(tEsc); txtEsc.setFont(fEsc);
-            double wEsc = txtEsc.getLayoutBounds().getWidth();
-            gc.fillText(tEsc, (UsakoGameApp.WINDOW_WIDTH - wEsc) / 2, 350);
+        double by = world.getPrevBirdY() + (world.getBirdY() - world.getPrevBirdY()) * alpha;
+        if (atlas.has(currentBird)) atlas.draw(gc, currentBird, birdX, by, birdDisplayWidth, birdDisplayHeight);
+        else {
+            gc.setFill(Color.YELLOW);
+            gc.fillRect(birdX, by, birdDisplayWidth, birdDisplayHeight);
+            RenderStats.count(1, birdDisplayWidth * birdDisplayHeight);
+        }
+    }
+
+    private void renderHud(GraphicsContext gc, boolean showStart, int replaySpeed) {
+        scoreLabel.draw(gc, world.getScore(), UsakoGameApp.WINDOW_WIDTH - 220, 50);
+        highScoreLabel.draw(gc, highScore, UsakoGameApp.WINDOW_WIDTH - 220, 80);
+
+        if (showStart) {
+            startText.drawCentered(gc, UsakoGameApp.WINDOW_WIDTH / 2.0, 300);
+            escText.drawCentered(gc, UsakoGameApp.WINDOW_WIDTH / 2.0, 350);
+        }
+
+        if (replaySpeed > 0) {
+            replayLabel.draw(gc, replaySpeed, 20, 50);
+            replayHint.draw(gc, 20, 80);
+        }
+        if (demo != null) {
+            demoText.drawCentered(gc, UsakoGameApp.WINDOW_WIDTH / 2.0, 200);
+            demoHint.drawCentered(gc, UsakoGameApp.WINDOW_WIDTH / 2.0, 240);
         }
-        // Overlay handled by App
     }
 }
@@ -0,0 +1,186 @@
+package com.example.usakogame.flappy;
+
+import com.example.usakogame.sim.BroadPhase;
+import com.example.usakogame.sim.Checksum;
+import com.example.usakogame.sim.EntityStore;
+import com.example.usakogame.sim.Input;
+import com.example.usakogame.sim.PngInfo;
+import com.example.usakogame.sim.Playfield;
+import com.example.usakogame.sim.SimEvent;
+import com.example.usakogame.sim.SimRandom;
+import com.example.usakogame.sim.Swept;
+
+// Headless Flappy Usako simulation: gravity, pipes, scoring and collision.
+// Contains no JavaFX or sound code; FlappyBirdGame renders it.
+public class FlappyWorld {
+    public static final double GRAVITY = 0.6;
+    public static final double JUMP_STRENGTH = -10;
+    public static final double PIPE_SPEED = 3;
+    public static final double PIPE_WIDTH = 60;
+    public static final double PIPE_GAP = 230;
+    public static final int SPAWN_INTERVAL = 110;
+    public static final double BIRD_X = 100;
+    // Pipe flags (EntityStore.flags); a pipe's h is its top height
+    public static final int FLAG_SCORED = 1;
+    private static final int MAX_PIPES = 16; // Three or four are ever on screen
+
+    private final double birdWidth;
+    private final double birdHeight;
+    private final SimRandom random;
+
+    private boolean isRunning = false;
+    private boolean isGameOver = false;
+    private int score = 0;
+    private int ticks = 0;
+    private int idleTicks = 0;
+
+    private double birdY;
+    private double prevBirdY;
+    private double birdVelocity = 0;
+
+    // Always sorted by x: all spawn at the right edge and scroll at PIPE_SPEED
+    private final EntityStore pipes = new EntityStore(MAX_PIPES);
+
+    public FlappyWorld(double birdWidth, double birdHeight, long seed) {
+        this.birdWidth = birdWidth;
+        this.birdHeight = birdHeight;
+        this.random = new SimRandom(seed);
+        reset(seed);
+    }
+
+    // World with the bird sized like the shipped usako_normal.png (40px wide)
+    public static FlappyWorld withShippedSprites(long seed) {
+        double[] size = PngInfo.size("/com/example/usakogame/usako_normal.png");
+        double w = 40;
+        double h = 40;
+        if (size != null) {
+            double ratio = size[0] / size[1];
+            h = 40 / ratio;
+        }
+        return new FlappyWorld(w, h, seed);
+    }
+
+    public void reset(long seed) {
+        random.setSeed(seed);
+        birdY = Playfield.HEIGHT / 2.0;
+        prevBirdY = birdY;
+        idleTicks = 0;
+        birdVelocity = 0;
+        score = 0;
+        ticks = 0;
+        pipes.clear();
+        isRunning = false;
+        isGameOver = false;
+    }
+
+    // Advances one tick. inputMask is a combination of Input bits; returns SimEvent bits.
+    public int step(int inputMask) {
+        // Keep the previous tick's positions so the renderer can interpolate between ticks
+        prevBirdY = birdY;
+        pipes.savePositions();
+
+        if (isGameOver) return SimEvent.NONE;
+
+        int events = SimEvent.NONE;
+        if ((inputMask & (Input.JUMP | Input.START)) != 0) isRunning = true;
+        if ((inputMask & Input.JUMP) != 0) {
+            birdVelocity = JUMP_STRENGTH;
+            events |= SimEvent.JUMP;
+        }
+
+        if (!isRunning) {
+            // Idle bobbing, driven by ticks (~1000/60 ms each) rather than wall-clock time
+            idleTicks++;
+            birdY = (Playfield.HEIGHT / 2.0) + Math.sin(idleTicks * (1000.0 / 60) / 300.0) * 10;
+            return events;
+        }
+
+        ticks++;
+        birdVelocity += GRAVITY;
+        birdY += birdVelocity;
+
+        if (ticks % SPAWN_INTERVAL == 0) spawnPipe();
+
+        pipes.scroll(PIPE_SPEED);
+        for (int run = 0; run < 2; run++) {
+            for (int s = pipes.runStart(run), end = pipes.runEnd(run); s < end; s++) {
+                if ((pipes.flags[s] & FLAG_SCORED) == 0 && pipes.x[s] + PIPE_WIDTH < BIRD_X) {
+                    score++;
+                    pipes.flags[s] |= FLAG_SCORED;
+                    events |= SimEvent.SCORE;
+                }
+            }
+        }
+        if (collides()) gameOver();
+        // Sorted by x, so the ones off screen are at the front
+        while (!pipes.isEmpty() && pipes.x[pipes.slot(0)] + PIPE_WIDTH < -10) pipes.despawnOldest();
+
+        if (birdY < 0 || birdY + birdHeight > Playfield.HEIGHT) gameOver();
+        if (isGameOver) events |= SimEvent.GAME_OVER;
+        return events;
+    }
+
+    // Whether any pipe hits the bird this tick; only pipes that can reach the bird's span
+    // are tested (BroadPhase), like the Runner
+    boolean collides() {
+        double maxX = BIRD_X + birdWidth;
+        for (int i = BroadPhase.firstAbove(pipes, BIRD_X - PIPE_SPEED - PIPE_WIDTH); i < pipes.size(); i++) {
+            int s = pipes.slot(i);
+            if (pipes.x[s] >= maxX) break; // All the rest are further right
+            if (checkCollision(s)) return true;
+        }
+        return false;
+    }
+
+    // Swept over the tick (the bird's fall or rise, the pipe's scroll), like the Runner
+    boolean checkCollision(int slot) {
+        double bx = BIRD_X + 2;
+        double by = birdY + 2;
+        double bw = birdWidth - 4;
+        double bh = birdHeight - 4;
+        double dy = birdY - prevBirdY;
+        double px = pipes.x[slot], topHeight = pipes.h[slot];
+        double dx = px - pipes.prevX[slot];
+        double bottomY = topHeight + PIPE_GAP;
+        return Swept.hit(bx, by, bw, bh, 0, dy, px, 0, PIPE_WIDTH, topHeight, dx, 0)
+                || Swept.hit(bx, by, bw, bh, 0, dy, px, bottomY, PIPE_WIDTH, Playfield.HEIGHT - bottomY, dx, 0);
+    }
+
+    private void spawnPipe() {
+        double minHeight = 50;
+        double maxHeight = Playfield.HEIGHT - PIPE_GAP - minHeight;
+        double h = minHeight + random.nextDouble() * (maxHeight - minHeight);
+        pipes.spawn(Playfield.WIDTH, 0, PIPE_WIDTH, h, 0);
+    }
+
+    private void gameOver() {
+        isGameOver = true;
+        isRunning = false;
+    }
+
+    // Fingerprint of the whole simulation state: equal only if a replay reproduced the run exactly
+    public long checksum() {
+        long h = Checksum.mix(random.getState(), ticks);
+        h = Checksum.mix(h, score);
+        h = Checksum.mix(h, idleTicks);
+        h = Checksum.mix(h, birdY);
+        h = Checksum.mix(h, birdVelocity);
+        h = Checksum.mix(h, (isRunning ? 1 : 0) | (isGameOver ? 2 : 0));
+        for (int i = 0; i < pipes.size(); i++) {
+            int s = pipes.slot(i);
+            h = Checksum.mix(Checksum.mix(h, pipes.x[s]), pipes.h[s]);
+        }
+        return h;
+    }
+
+    public double getBirdWidth() { return birdWidth; }
+    public double getBirdHeight() { return birdHeight; }
+    public double getBirdY() { return birdY; }
+    public double getPrevBirdY() { return prevBirdY; }
+    public double getBirdVelocity() { return birdVelocity; }
+    public boolean isRunning() { return isRunning; }
+    public boolean isGameOver() { return isGameOver; }
+    public int getScore() { return score; }
+    public int getTicks() { return ticks; }
+    public EntityStore getPipes() { return pipes; }
+}
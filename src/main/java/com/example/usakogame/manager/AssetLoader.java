@@ -0,0 +1,53 @@
+package com.example.usakogame.manager;
+
+import com.example.usakogame.render.SpriteAtlas;
+import com.example.usakogame.render.SpriteCache;
+import javafx.application.Platform;
+import javafx.beans.property.ReadOnlyDoubleProperty;
+import javafx.beans.property.ReadOnlyDoubleWrapper;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Decodes sprite atlases in parallel on a worker pool so the window appears immediately
+// and the FX thread never blocks on PNG decoding. Each load() returns its own future,
+// so a screen or game waits only for the assets it actually needs. Packed atlases are
+// kept in a SpriteCache under the data directory for the next launch.
+public class AssetLoader {
+    private final ForkJoinPool pool = new ForkJoinPool(Math.max(2, Runtime.getRuntime().availableProcessors()));
+    private final double outputScale;
+    private final SpriteCache cache = new SpriteCache(HighScoreManager.getDataDir().resolve("cache"));
+
+    private final AtomicInteger total = new AtomicInteger();
+    private final AtomicInteger done = new AtomicInteger();
+    private final ReadOnlyDoubleWrapper progress = new ReadOnlyDoubleWrapper(0);
+
+    public AssetLoader(double outputScale) {
+        this.outputScale = outputScale;
+    }
+
+    // Starts decoding atlas in the background; completes once it is packed and drawable
+    public CompletableFuture<SpriteAtlas> load(String name, SpriteAtlas atlas) {
+        long start = System.nanoTime();
+        total.addAndGet(atlas.size());
+        return atlas.buildAsync(outputScale, pool, this::frameDecoded, cache, name).whenComplete((a, e) -> {
+            if (e != null) {
+                System.err.println("Asset loading failed: " + name + " " + e.getMessage());
+            } else {
+                System.out.printf("Assets ready: %s (%d sprites, %d KB) in %d ms%n", name, atlas.size(),
+                        atlas.getByteSize() / 1024, (System.nanoTime() - start) / 1_000_000);
+            }
+        });
+    }
+
+    private void frameDecoded() {
+        double value = done.incrementAndGet() / (double) total.get();
+        Platform.runLater(() -> progress.set(value));
+    }
+
+    // Fraction of all requested sprites decoded so far (updated on the FX thread)
+    public ReadOnlyDoubleProperty progressProperty() {
+        return progress.getReadOnlyProperty();
+    }
+}
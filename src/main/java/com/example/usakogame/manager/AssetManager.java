@@ -0,0 +1,117 @@
+package com.example.usakogame.manager;
+
+import com.example.usakogame.render.SpriteAtlas;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+// Owns every sprite atlas and decides which ones stay in memory. Screens and games
+// acquire() the atlases they draw and release() them when they leave; an atlas nobody
+// holds stays cached only while total atlas memory fits the budget, least recently used
+// first out. Set the budget with -Dusako.assetBudgetKB (0 frees released atlases at once).
+public class AssetManager {
+    private static final long DEFAULT_BUDGET_BYTES = 4L * 1024 * 1024;
+
+    private static class Entry {
+        final String name;
+        final SpriteAtlas atlas;
+        int refCount = 0;
+        long bytes = 0;
+        CompletableFuture<SpriteAtlas> loading; // null when unloaded
+
+        Entry(String name, SpriteAtlas atlas) {
+            this.name = name;
+            this.atlas = atlas;
+        }
+    }
+
+    private final AssetLoader loader;
+    private final long budgetBytes;
+    // Access-ordered: iteration starts at the least recently used atlas
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long currentBytes = 0;
+    private long peakBytes = 0;
+
+    public AssetManager(AssetLoader loader) {
+        this.loader = loader;
+        this.budgetBytes = Long.getLong("usako.assetBudgetKB", DEFAULT_BUDGET_BYTES / 1024) * 1024;
+    }
+
+    public synchronized void register(String name, SpriteAtlas atlas) {
+        entries.put(name, new Entry(name, atlas));
+    }
+
+    // Takes a reference to an atlas, loading it if needed; the future completes once drawable
+    public synchronized CompletableFuture<SpriteAtlas> acquire(String name) {
+        Entry e = entries.get(name);
+        e.refCount++;
+        return ensureLoaded(e);
+    }
+
+    // Loads an atlas ahead of time without holding it (it may be evicted again under pressure)
+    public synchronized CompletableFuture<SpriteAtlas> prefetch(String name) {
+        return ensureLoaded(entries.get(name));
+    }
+
+    public synchronized void release(String name) {
+        Entry e = entries.get(name);
+        if (e == null || e.refCount == 0) return;
+        e.refCount--;
+        if (e.refCount == 0) evictToBudget();
+    }
+
+    // Atlas memory in use now and at most so far (RenderStats prints both)
+    public synchronized long getCurrentBytes() {
+        return currentBytes;
+    }
+
+    public synchronized long getPeakBytes() {
+        return peakBytes;
+    }
+
+    private CompletableFuture<SpriteAtlas> ensureLoaded(Entry e) {
+        if (e.loading == null) {
+            CompletableFuture<SpriteAtlas> future = loader.load(e.name, e.atlas);
+            e.loading = future;
+            future.whenComplete((a, ex) -> loaded(e, future, ex));
+        }
+        return e.loading;
+    }
+
+    private synchronized void loaded(Entry e, CompletableFuture<SpriteAtlas> future, Throwable ex) {
+        if (e.loading != future) return; // Unloaded again before it finished
+        if (ex != null) {
+            e.loading = null;
+            return;
+        }
+        e.bytes = e.atlas.getByteSize();
+        currentBytes += e.bytes;
+        peakBytes = Math.max(peakBytes, currentBytes);
+        evictToBudget();
+        logUsage("loaded " + e.name);
+    }
+
+    private void evictToBudget() {
+        List<String> evicted = new ArrayList<>();
+        Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+        while (currentBytes > budgetBytes && it.hasNext()) {
+            Entry e = it.next().getValue();
+            if (e.refCount > 0 || e.loading == null || !e.loading.isDone()) continue;
+            e.atlas.unload();
+            e.loading = null;
+            currentBytes -= e.bytes;
+            e.bytes = 0;
+            evicted.add(e.name);
+        }
+        if (!evicted.isEmpty()) logUsage("evicted " + evicted);
+    }
+
+    private void logUsage(String what) {
+        System.out.printf("Assets %s: %d KB in use (peak %d KB, budget %d KB)%n",
+                what, currentBytes / 1024, peakBytes / 1024, budgetBytes / 1024);
+    }
+}
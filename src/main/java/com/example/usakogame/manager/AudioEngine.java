@@ -0,0 +1,212 @@
+package com.example.usakogame.manager;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.LineUnavailableException;
+import javax.sound.sampled.SourceDataLine;
+import java.nio.ShortBuffer;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// One audio line for the whole session. A dedicated mixer thread sums every playing voice
+// into short periods (default 10 ms, -Dusako.audioPeriodMs) and writes them to a line
+// opened once at startup with a small buffer (-Dusako.audioBufferMs, default 40 ms).
+// play() only drops a command into a lock-free queue, so the FX thread never blocks on audio.
+// Run with -Dusako.audioStats=true to print voice count and trigger-to-sound latency.
+public class AudioEngine {
+    public static final float SAMPLE_RATE = 44100;
+    static final AudioFormat FORMAT = new AudioFormat(SAMPLE_RATE, 16, 1, true, false);
+    private static final int MAX_VOICES = 16;
+    private static final int QUEUE_SIZE = 64; // Power of two
+    private static final boolean LOG = Boolean.getBoolean("usako.audioStats");
+
+    private final int periodFrames;
+    private final int bufferFrames;
+    private SourceDataLine line;
+    private Thread mixer;
+    private volatile boolean running;
+    private volatile MusicSequencer music; // Mixed under the voices, if set
+
+    // Play commands: bounded multi-producer queue (Vyukov), slots preallocated
+    private final ShortBuffer[] cmdSamples = new ShortBuffer[QUEUE_SIZE];
+    private final float[] cmdGain = new float[QUEUE_SIZE];
+    private final long[] cmdTime = new long[QUEUE_SIZE];
+    private final AtomicLongArray cmdSeq = new AtomicLongArray(QUEUE_SIZE);
+    private final AtomicLong enqueuePos = new AtomicLong();
+    private long dequeuePos = 0; // Mixer thread only
+
+    // Voices (mixer thread only)
+    private final ShortBuffer[] voiceSamples = new ShortBuffer[MAX_VOICES];
+    private final int[] voicePos = new int[MAX_VOICES];
+    private final float[] voiceGain = new float[MAX_VOICES];
+    private final int[] mix;
+    private final byte[] out;
+
+    // Stats (written by the mixer thread, read from anywhere)
+    private volatile int activeVoices = 0;
+    private volatile int peakVoices = 0;
+    private volatile double lastLatencyMs = 0;
+    private volatile double maxLatencyMs = 0;
+    private volatile long underruns = 0;
+    private final AtomicLong dropped = new AtomicLong();
+
+    public AudioEngine() {
+        this(Integer.getInteger("usako.audioPeriodMs", 10), Integer.getInteger("usako.audioBufferMs", 40));
+    }
+
+    public AudioEngine(int periodMs, int bufferMs) {
+        periodFrames = Math.max(64, (int) (SAMPLE_RATE * periodMs / 1000));
+        bufferFrames = Math.max(periodFrames * 2, (int) (SAMPLE_RATE * bufferMs / 1000));
+        mix = new int[periodFrames];
+        out = new byte[periodFrames * 2];
+        for (int i = 0; i < QUEUE_SIZE; i++) cmdSeq.set(i, i);
+    }
+
+    // Opens the line and starts the mixer thread; false if no audio device is available
+    public boolean start() {
+        try {
+            line = AudioSystem.getSourceDataLine(FORMAT);
+            line.open(FORMAT, bufferFrames * 2);
+            line.start();
+        } catch (LineUnavailableException | IllegalArgumentException e) {
+            System.err.println("Audio disabled: " + e.getMessage());
+            line = null;
+            return false;
+        }
+        running = true;
+        mixer = new Thread(this::mixLoop, "audio-mixer");
+        mixer.setDaemon(true);
+        mixer.setPriority(Thread.MAX_PRIORITY);
+        mixer.start();
+        System.out.printf("Audio: line buffer %d ms, period %d ms%n",
+                Math.round(line.getBufferSize() / 2 * 1000 / SAMPLE_RATE), Math.round(periodFrames * 1000 / SAMPLE_RATE));
+        return true;
+    }
+
+    public void stop() {
+        running = false;
+        if (mixer != null) {
+            try {
+                mixer.join(500);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (line != null) line.close();
+    }
+
+    // Queues a voice; samples are 16-bit mono at SAMPLE_RATE and are only read, never modified.
+    // Safe from any thread, never blocks; a full queue drops the sound.
+    public void play(ShortBuffer samples, float gain) {
+        if (!running) return;
+        long pos;
+        int slot;
+        while (true) {
+            pos = enqueuePos.get();
+            slot = (int) (pos & (QUEUE_SIZE - 1));
+            long seq = cmdSeq.get(slot);
+            if (seq == pos) {
+                if (enqueuePos.compareAndSet(pos, pos + 1)) break;
+            } else if (seq < pos) {
+                dropped.incrementAndGet();
+                return;
+            }
+        }
+        cmdSamples[slot] = samples;
+        cmdGain[slot] = gain;
+        cmdTime[slot] = System.nanoTime();
+        cmdSeq.set(slot, pos + 1); // Publishes the slot to the mixer
+    }
+
+    private void mixLoop() {
+        long nextLog = System.nanoTime();
+        while (running) {
+            startQueuedVoices();
+            mixPeriod();
+            if (line.available() >= line.getBufferSize()) underruns++;
+            line.write(out, 0, out.length); // Blocks while the line buffer is full: paces the loop
+            if (LOG && System.nanoTime() >= nextLog) {
+                nextLog = System.nanoTime() + 1_000_000_000L;
+                System.out.printf("Audio: %d voices (peak %d), latency %.1f ms (max %.1f), underruns %d, dropped %d%n",
+                        activeVoices, peakVoices, lastLatencyMs, maxLatencyMs, underruns, dropped.get());
+            }
+        }
+        line.drain();
+    }
+
+    private void startQueuedVoices() {
+        while (true) {
+            int slot = (int) (dequeuePos & (QUEUE_SIZE - 1));
+            if (cmdSeq.get(slot) != dequeuePos + 1) return; // Empty
+            ShortBuffer samples = cmdSamples[slot];
+            float gain = cmdGain[slot];
+            long queuedAt = cmdTime[slot];
+            cmdSamples[slot] = null;
+            cmdSeq.set(slot, dequeuePos + QUEUE_SIZE); // Frees the slot for producers
+            dequeuePos++;
+
+            int v = freeVoice();
+            voiceSamples[v] = samples;
+            voicePos[v] = 0;
+            voiceGain[v] = gain;
+
+            // Time until the first sample is heard: waiting in the queue plus audio already in the line
+            int queuedFrames = (line.getBufferSize() - line.available()) / 2;
+            double latency = (System.nanoTime() - queuedAt) / 1e6 + queuedFrames * 1000 / SAMPLE_RATE;
+            lastLatencyMs = latency;
+            if (latency > maxLatencyMs) maxLatencyMs = latency;
+        }
+    }
+
+    // An idle voice, or the one closest to finishing when all are busy
+    private int freeVoice() {
+        int best = 0;
+        int bestLeft = Integer.MAX_VALUE;
+        for (int v = 0; v < MAX_VOICES; v++) {
+            if (voiceSamples[v] == null) return v;
+            int left = voiceSamples[v].limit() - voicePos[v];
+            if (left < bestLeft) {
+                bestLeft = left;
+                best = v;
+            }
+        }
+        return best;
+    }
+
+    private void mixPeriod() {
+        for (int i = 0; i < periodFrames; i++) mix[i] = 0;
+        MusicSequencer m = music;
+        if (m != null) m.render(mix, periodFrames);
+        int voices = 0;
+        for (int v = 0; v < MAX_VOICES; v++) {
+            ShortBuffer s = voiceSamples[v];
+            if (s == null) continue;
+            voices++;
+            int pos = voicePos[v];
+            int n = Math.min(periodFrames, s.limit() - pos);
+            float gain = voiceGain[v];
+            for (int i = 0; i < n; i++) mix[i] += (int) (s.get(pos + i) * gain);
+            voicePos[v] = pos + n;
+            if (voicePos[v] >= s.limit()) voiceSamples[v] = null;
+        }
+        activeVoices = voices;
+        if (voices > peakVoices) peakVoices = voices;
+
+        for (int i = 0; i < periodFrames; i++) {
+            int val = Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, mix[i]));
+            out[2 * i] = (byte) (val & 0xFF);
+            out[2 * i + 1] = (byte) ((val >> 8) & 0xFF);
+        }
+    }
+
+    public void setMusic(MusicSequencer music) {
+        this.music = music;
+    }
+
+    public int getActiveVoices() { return activeVoices; }
+    public int getPeakVoices() { return peakVoices; }
+    public double getLastLatencyMs() { return lastLatencyMs; }
+    public double getMaxLatencyMs() { return maxLatencyMs; }
+    public long getUnderruns() { return underruns; }
+    public long getDropped() { return dropped.get(); }
+}
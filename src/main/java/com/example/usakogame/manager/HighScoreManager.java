@@ -2,25 +2,71 @@ package com.example.usakogame.manager;
 
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
 
+// Every run ever played, kept in memory (RunHistory) and appended to runs.log (ScoreLog).
+// Game threads only touch memory; the writer thread appends queued records in batches
+// and compacts the log once enough records have piled up since the last compaction.
+// Other game processes may share the data directory: each write first merges what they
+// appended (under the log's file lock), and a watcher on the directory merges their writes
+// as they happen.
 public class HighScoreManager {
     private static final String DIR_PATH;
-    private static final String FILE_PATH;
-    private static final int MAX_RANKING = 5;
-    private static Properties properties = new Properties();
+    private static final String FILE_PATH; // Old Properties store, imported once
+    // Records appended since the last compaction before the log is compacted again
+    private static final int COMPACT_EVERY = Integer.getInteger("usako.compactEvery", 4096);
+    // Replays kept: those of the newest runs (a run just played can still be named and
+    // watched) and of each mode's best ranked runs; the rest are deleted
+    private static final int REPLAY_KEEP_RECENT = Integer.getInteger("usako.replayKeepRecent", 20);
+    private static final int REPLAY_KEEP_RANKED = Integer.getInteger("usako.replayKeepRanked", 100);
+
+    // Guarded by the class lock
+    private static RunHistory history = new RunHistory();
+    private static final List<ByteBuffer> pending = new ArrayList<>();
+    private static long compactedRecords = 0; // Log records at the last compaction or startup
+
+    private static final ScoreLog log;
+
+    // Single background writer: disk I/O never runs on the FX thread
+    private static final ExecutorService writer = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "score-writer");
+        t.setDaemon(true);
+        return t;
+    });
+    private static final AtomicBoolean savePending = new AtomicBoolean(false);
+    private static volatile Runnable onExternalChange; // Called on the writer thread
 
     static {
         // Determine the OS-specific data directory
         String os = System.getProperty("os.name").toLowerCase();
         String baseDir;
 
-        if (os.contains("win")) {
+        if (System.getProperty("usako.dataDir") != null) {
+            // Explicit override (benchmarks, tests, portable installs)
+            baseDir = System.getProperty("usako.dataDir");
+        } else if (os.contains("win")) {
             // Windows: %APPDATA%\UsakoGame
             baseDir = System.getenv("APPDATA");
             if (baseDir == null) {
@@ -36,6 +82,7 @@ public class HighScoreManager {
 
         DIR_PATH = baseDir + "/UsakoGame";
         FILE_PATH = DIR_PATH + "/scores.properties";
+        log = new ScoreLog(Paths.get(DIR_PATH));
 
         load();
     }
@@ -46,93 +93,334 @@ public class HighScoreManager {
             dir.mkdirs();
         }
 
-        File file = new File(FILE_PATH);
-        if (file.exists()) {
-            try (FileInputStream fis = new FileInputStream(file)) {
-                properties.load(fis);
+        boolean fresh = !log.exists();
+        long start = System.nanoTime();
+        try {
+            log.lock();
+            try {
+                history = log.reload();
+            } finally {
+                log.unlock();
+            }
+        } catch (IOException e) {
+            System.err.println("Failed to load high scores: " + e.getMessage());
+        }
+        compactedRecords = log.getRecordCount();
+        System.out.printf("Score log: %d runs in %.1f ms%n", history.size(), (System.nanoTime() - start) / 1e6);
+
+        if (fresh) importProperties();
+        startWatcher();
+    }
+
+    // Another process wrote to the log: merge on the writer thread. Watching costs nothing
+    // between writes (no polling); our own appends wake it too and merge nothing.
+    private static void startWatcher() {
+        Thread t = new Thread(() -> {
+            try (WatchService watch = FileSystems.getDefault().newWatchService()) {
+                getDataDir().register(watch, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+                while (true) {
+                    WatchKey key = watch.take();
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        if (log.getPath().getFileName().equals(event.context())) scheduleSave();
+                    }
+                    if (!key.reset()) return;
+                }
             } catch (IOException e) {
-                System.err.println("Failed to load high scores: " + e.getMessage());
+                System.err.println("Score watcher disabled: " + e.getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, "score-watcher");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    // Called on a background thread after runs from another process were merged
+    public static void setOnExternalChange(Runnable listener) {
+        onExternalChange = listener;
+    }
+
+    // First start after the switch to runs.log: the old top 5 per mode become named runs
+    private static void importProperties() {
+        File file = new File(FILE_PATH);
+        if (!file.exists()) return;
+        Properties properties = new Properties();
+        try (FileInputStream fis = new FileInputStream(file)) {
+            properties.load(fis);
+        } catch (IOException e) {
+            System.err.println("Failed to load high scores: " + e.getMessage());
+            return;
+        }
+        long timestamp = file.lastModified();
+        for (String key : properties.stringPropertyNames()) {
+            if (!key.endsWith(".score")) continue;
+            String prefix = key.substring(0, key.length() - ".score".length());
+            String mode = prefix.substring(0, prefix.lastIndexOf('.'));
+            try {
+                int score = Integer.parseInt(properties.getProperty(key));
+                append(mode, score, timestamp, 0, properties.getProperty(prefix + ".name", "NoName"));
+            } catch (IllegalArgumentException e) {
+                System.err.println("Skipping bad high score entry: " + key);
             }
         }
+        // Kept as a backup once the imported runs are on disk
+        writer.execute(() -> {
+            try {
+                Files.move(Paths.get(FILE_PATH), Paths.get(FILE_PATH + ".bak"), StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException e) {
+                System.err.println("Failed to back up old high scores: " + e.getMessage());
+            }
+        });
     }
 
+    // Queues a write of the pending records; several runs before it starts share one write
+    private static void scheduleSave() {
+        if (savePending.compareAndSet(false, true)) writer.execute(HighScoreManager::save);
+    }
+
+    // Writer thread, holding the log's file lock: merges what other processes appended, then
+    // appends the pending records in one write, or rewrites the whole log from a snapshot
+    // when it is time to compact (the snapshot already holds them)
     private static void save() {
-        File dir = new File(DIR_PATH);
-        if (!dir.exists()) {
-            dir.mkdirs();
-        }
+        savePending.set(false);
+        boolean merged = false;
+        try {
+            log.lock();
+            try {
+                ByteBuffer others = log.readNew();
+                RunHistory reloaded = others == null ? log.reload() : null;
+                ByteBuffer batch = null;
+                RunHistory.Columns columns = null;
+                synchronized (HighScoreManager.class) {
+                    if (reloaded != null) {
+                        // Compacted by another process: its log plus our runs not written yet
+                        for (ByteBuffer b : pending) ScoreLog.apply(b, reloaded);
+                        history = reloaded;
+                        compactedRecords = Math.min(compactedRecords, log.getRecordCount());
+                        merged = true;
+                    } else if (others.hasRemaining()) {
+                        // A CLEAR from another process also dropped our unwritten runs, which come after it
+                        if (ScoreLog.apply(others, history)) {
+                            for (ByteBuffer b : pending) ScoreLog.apply(b, history);
+                        }
+                        merged = true;
+                    }
 
-        try (FileOutputStream fos = new FileOutputStream(FILE_PATH)) {
-            properties.store(fos, "Usako Game High Scores");
+                    if (log.getRecordCount() + pending.size() - compactedRecords >= COMPACT_EVERY) {
+                        columns = history.columns(); // Only array copies while the game may be waiting
+                    } else {
+                        batch = ByteBuffer.allocate(pending.size() * ScoreLog.RECORD_SIZE);
+                        for (ByteBuffer b : pending) batch.put(b.duplicate());
+                        batch.flip();
+                    }
+                    pending.clear();
+                }
+                if (columns != null) {
+                    RunHistory snapshot = columns.build();
+                    log.compact(snapshot);
+                    pruneReplays(snapshot);
+                    synchronized (HighScoreManager.class) {
+                        compactedRecords = log.getRecordCount();
+                        // The live history may have grown meanwhile; reuse the sorted order if it still matches
+                        int n = snapshot.size();
+                        if (n > 0 && history.size() >= n && history.runId(n - 1) == snapshot.runId(n - 1)) {
+                            for (int m = 0; m < ScoreLog.MODES.length; m++) history.seedRankOrder(m, snapshot.rankOrder(m), n);
+                        }
+                    }
+                } else {
+                    log.append(batch);
+                }
+            } finally {
+                log.unlock();
+            }
         } catch (IOException e) {
             System.err.println("Failed to save high scores: " + e.getMessage());
         }
+        Runnable listener = onExternalChange;
+        if (merged && listener != null) listener.run();
     }
 
-    public static int getHighScore(String gameMode) {
-        List<ScoreEntry> list = getTopScores(gameMode);
-        if (list.isEmpty()) return 0;
-        return list.get(0).score;
+    // Blocks until every queued write has reached the disk (called on exit)
+    public static void flush() {
+        try {
+            writer.submit(() -> { }).get();
+        } catch (Exception e) {
+            System.err.println("Failed to flush high scores: " + e.getMessage());
+        }
+    }
+
+    // OS-specific directory holding scores and caches
+    public static Path getDataDir() {
+        return Paths.get(DIR_PATH);
+    }
+
+    // Recorded runs (see sim.Replay), one <runId in hex>.rpl file each, only for the runs
+    // REPLAY_KEEP_RECENT / REPLAY_KEEP_RANKED keep
+    public static Path getReplayDir() {
+        return getDataDir().resolve("replays");
     }
 
-    public static List<ScoreEntry> getTopScores(String gameMode) {
-        List<ScoreEntry> list = new ArrayList<>();
-        for (int i = 0; i < MAX_RANKING; i++) {
-            String nameKey = gameMode + "." + i + ".name";
-            String scoreKey = gameMode + "." + i + ".score";
-            
-            if (properties.containsKey(scoreKey)) {
-                String name = properties.getProperty(nameKey, "NoName");
-                int score = Integer.parseInt(properties.getProperty(scoreKey, "0"));
-                list.add(new ScoreEntry(name, score));
+    private static Path replayPath(long runId) {
+        return getReplayDir().resolve(Long.toHexString(runId) + ".rpl");
+    }
+
+    // Stores the replay of a recorded run on the writer thread (temp file + move, so a
+    // reader never sees half a file). The run REPLAY_KEEP_RECENT before this one loses its
+    // replay unless it was named; compaction sweeps the rest (pruneReplays).
+    public static void saveReplay(long runId, byte[] replay) {
+        writer.execute(() -> {
+            try {
+                Path path = replayPath(runId);
+                Files.createDirectories(path.getParent());
+                Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+                Files.write(tmp, replay);
+                Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+                long expired = 0;
+                synchronized (HighScoreManager.class) {
+                    int pos = history.find(runId) - REPLAY_KEEP_RECENT; // Near the end: a short search
+                    if (pos >= 0 && !history.isRanked(pos)) expired = history.runId(pos);
+                }
+                if (expired != 0) Files.deleteIfExists(replayPath(expired));
+            } catch (IOException e) {
+                System.err.println("Failed to save replay: " + e.getMessage());
             }
-        }
-        // Ensure sorted (though save logic keeps it sorted)
-        list.sort((a, b) -> Integer.compare(b.score, a.score));
-        return list;
+        });
     }
 
-    public static void submitScore(String gameMode, String name, int score) {
-        List<ScoreEntry> list = getTopScores(gameMode);
-        list.add(new ScoreEntry(name, score));
-        list.sort((a, b) -> Integer.compare(b.score, a.score));
-        
-        // Trim to MAX
-        if (list.size() > MAX_RANKING) {
-            list = list.subList(0, MAX_RANKING);
+    // Writer thread, after a compaction: deletes every replay that is neither one of the
+    // newest REPLAY_KEEP_RECENT runs nor among the REPLAY_KEEP_RANKED best of its mode.
+    // Other processes append a run before saving its replay, so theirs are in the snapshot.
+    private static void pruneReplays(RunHistory h) {
+        Set<Long> keep = new HashSet<>();
+        for (int pos = Math.max(0, h.size() - REPLAY_KEEP_RECENT); pos < h.size(); pos++) keep.add(h.runId(pos));
+        for (int m = 0; m < ScoreLog.MODES.length; m++) {
+            int[] order = h.rankOrder(m);
+            for (int i = 0; i < Math.min(order.length, REPLAY_KEEP_RANKED); i++) keep.add(h.runId(order[i]));
         }
-        
-        // Save back
-        for (int i = 0; i < MAX_RANKING; i++) {
-            String nameKey = gameMode + "." + i + ".name";
-            String scoreKey = gameMode + "." + i + ".score";
-            
-            if (i < list.size()) {
-                properties.setProperty(nameKey, list.get(i).name);
-                properties.setProperty(scoreKey, String.valueOf(list.get(i).score));
-            } else {
-                // Clear extra slots if list shrank (unlikely but safe)
-                properties.remove(nameKey);
-                properties.remove(scoreKey);
+        int deleted = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(getReplayDir(), "*.rpl")) {
+            for (Path f : files) {
+                String name = f.getFileName().toString();
+                try {
+                    long runId = Long.parseUnsignedLong(name.substring(0, name.length() - ".rpl".length()), 16);
+                    if (!keep.contains(runId) && Files.deleteIfExists(f)) deleted++;
+                } catch (NumberFormatException e) {
+                    // Not ours
+                }
             }
+        } catch (NoSuchFileException e) {
+            // No replays yet
+        } catch (IOException e) {
+            System.err.println("Failed to prune replays: " + e.getMessage());
         }
-        save();
+        if (deleted > 0) System.out.printf("Replays: pruned %d%n", deleted);
+    }
+
+    // Reads a run's replay on the writer thread; completes with null if there is none
+    public static CompletableFuture<byte[]> loadReplay(long runId) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                Path path = replayPath(runId);
+                return Files.exists(path) ? Files.readAllBytes(path) : null;
+            } catch (IOException e) {
+                System.err.println("Failed to load replay: " + e.getMessage());
+                return null;
+            }
+        }, writer);
+    }
+
+    public static synchronized int getHighScore(String gameMode) {
+        int[] top = history.top(ScoreLog.modeId(gameMode));
+        return top.length == 0 ? 0 : history.score(top[0]);
+    }
+
+    // Best first, the RunHistory.TOP_K best named runs; read from a bounded heap, no sorting of the log
+    public static synchronized List<ScoreEntry> getTopScores(String gameMode) {
+        int[] top = history.top(ScoreLog.modeId(gameMode));
+        List<ScoreEntry> list = new ArrayList<>(top.length);
+        for (int pos : top) list.add(new ScoreEntry(history.name(pos), history.score(pos)));
+        return list;
+    }
+
+    // Records a finished run (not ranked until it is named); returns its id for nameRun.
+    // O(1): an array append in memory and a queued 64-byte record.
+    public static synchronized long recordRun(String gameMode, int score, long durationMs) {
+        return append(gameMode, score, System.currentTimeMillis(), (int) Math.min(durationMs, Integer.MAX_VALUE), null);
+    }
+
+    // Attaches the name typed on the game over screen, which puts the run in the ranking
+    public static synchronized void nameRun(long runId, String name) {
+        history.setName(runId, name);
+        pending.add(ScoreLog.encodeName(runId, name));
+        scheduleSave();
+    }
+
+    // Records an already named run
+    public static synchronized void submitScore(String gameMode, String name, int score) {
+        append(gameMode, score, System.currentTimeMillis(), 0, name);
     }
-    
+
+    private static long append(String gameMode, int score, long timestamp, int durationMs, String name) {
+        int mode = ScoreLog.modeId(gameMode);
+        long runId = ThreadLocalRandom.current().nextLong();
+        history.add(runId, mode, score, timestamp, durationMs, name);
+        pending.add(ScoreLog.encodeRun(runId, mode, score, timestamp, durationMs, name));
+        scheduleSave();
+        return runId;
+    }
+
+    // Statistics of a mode for one player (null = every run). Constant time whatever the
+    // number of runs: read from the aggregates RunHistory keeps up to date.
+    public static synchronized ScoreStats.Summary getStats(String gameMode, String player) {
+        return history.stats().summary(ScoreLog.modeId(gameMode), player);
+    }
+
+    // A filtered ranking to page through (player null = everyone; runs played in [fromMs, toMs)).
+    // One pass over the mode's ranking: call it off the FX thread for large leaderboards.
+    public static synchronized RankingQuery queryRanking(String gameMode, String player, long fromMs, long toMs) {
+        return RankingQuery.build(history, gameMode, player, fromMs, toMs);
+    }
+
+    // Caller holds the class lock
+    static boolean isCurrent(RunHistory h) {
+        return h == history;
+    }
+
+    // Everyone who ever named a run, sorted
+    public static synchronized List<String> getPlayerNames() {
+        return history.stats().playerNames();
+    }
+
+    public static synchronized int getRunCount() {
+        return history.size();
+    }
+
     // For compatibility with old setHighScore calls (assumes "Anonymous")
     public static void setHighScore(String gameMode, int score) {
         // We will not auto-submit anonymous high scores anymore if we want user input.
         // However, if we want to track 'current high' during game, we might need to check logic.
-        // For now, this method simply ignores saving if it doesn't have a name, 
+        // For now, this method simply ignores saving if it doesn't have a name,
         // OR we can save as "Unknown".
         // Let's deprecate this side-effect. The Game Over screen will handle submission.
     }
 
-    public static void clearAllData() {
-        properties.clear();
-        File file = new File(FILE_PATH);
-        if (file.exists()) {
-            file.delete();
+    // A CLEAR record drops every earlier run on replay, in every process sharing the log;
+    // the next compaction removes them from the file
+    public static synchronized void clearAllData() {
+        history.clear();
+        pending.add(ScoreLog.encodeClear());
+        scheduleSave();
+        writer.execute(HighScoreManager::deleteReplays);
+    }
+
+    private static void deleteReplays() {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(getReplayDir(), "*.rpl")) {
+            for (Path f : files) Files.deleteIfExists(f);
+        } catch (NoSuchFileException e) {
+            // No replays yet
+        } catch (IOException e) {
+            System.err.println("Failed to delete replays: " + e.getMessage());
         }
     }
 
@@ -0,0 +1,179 @@
+package com.example.usakogame.manager;
+
+import com.example.usakogame.sim.SimRandom;
+
+// Procedural chiptune background music, synthesized in real time on the audio mixer
+// thread: a triangle bass, a square-wave lead whose melody is re-rolled every two bars
+// from a seeded generator, and an LFSR noise hi-hat / kick. Work per sample is constant
+// and the synthesis loop allocates nothing, so a busy FX thread cannot make it underrun.
+// Tempo is set from the games (setTempo) and picked up at the next 16th-note step.
+public class MusicSequencer {
+    private static final float SAMPLE_RATE = AudioEngine.SAMPLE_RATE;
+    private static final int STEPS_PER_BAR = 16; // 16th notes
+    private static final int BARS = 4;           // Chord progression length
+
+    // I - vi - IV - V in C major (root MIDI notes of the bass)
+    private static final int[] CHORD_ROOTS = { 48, 45, 41, 43 };
+    private static final int[][] CHORD_TONES = { { 0, 4, 7 }, { 0, 3, 7 }, { 0, 4, 7 }, { 0, 4, 7 } };
+    private static final int[] BASS_PATTERN = { 0, -1, 12, -1, 0, -1, 7, -1, 0, -1, 12, -1, 7, -1, 12, 7 };
+
+    // Phase increment per sample for every MIDI note
+    private static final double[] NOTE_INC = new double[128];
+    static {
+        for (int n = 0; n < 128; n++) NOTE_INC[n] = 440.0 * Math.pow(2, (n - 69) / 12.0) / SAMPLE_RATE;
+    }
+
+    private volatile double bpm = 120;
+    private volatile boolean playing = false;
+    private volatile boolean restart = false;
+
+    // Sequencer state (audio thread only)
+    private int step = 0;
+    private int samplesLeft = 0;
+    private final int[] melody = new int[STEPS_PER_BAR * 2]; // MIDI note or -1 (rest)
+    private final SimRandom random;
+
+    private double bassPhase, bassInc;
+    private int bassEnv;
+    private double leadPhase, leadInc;
+    private int leadEnv;
+    private int noiseEnv, kickEnv;
+    private double kickPhase;
+    private int lfsr = 1;
+
+    public MusicSequencer(long seed) {
+        random = new SimRandom(seed);
+        rollMelody(0);
+    }
+
+    public void setTempo(double bpm) {
+        this.bpm = Math.max(60, Math.min(240, bpm));
+    }
+
+    public double getTempo() {
+        return bpm;
+    }
+
+    // Starting again after a stop begins from the first bar
+    public void setPlaying(boolean on) {
+        if (on && !playing) restart = true;
+        playing = on;
+    }
+
+    public boolean isPlaying() {
+        return playing;
+    }
+
+    // Adds frames samples of music into mix (16-bit scale). Called by the mixer thread.
+    public void render(int[] mix, int frames) {
+        if (!playing) return;
+        if (restart) {
+            restart = false;
+            step = -1;
+            samplesLeft = 0;
+            bassEnv = leadEnv = noiseEnv = kickEnv = 0;
+        }
+        for (int i = 0; i < frames; i++) {
+            if (samplesLeft == 0) nextStep();
+            samplesLeft--;
+
+            // Triangle bass
+            bassPhase += bassInc;
+            if (bassPhase >= 1) bassPhase -= 1;
+            double tri = bassPhase < 0.5 ? 4 * bassPhase - 1 : 3 - 4 * bassPhase;
+            int sample = (int) (tri * bassEnv);
+
+            // Square lead, 25% duty
+            leadPhase += leadInc;
+            if (leadPhase >= 1) leadPhase -= 1;
+            sample += leadPhase < 0.25 ? leadEnv : -leadEnv;
+
+            // Noise hi-hat (15-bit LFSR)
+            if (noiseEnv > 0) {
+                int bit = (lfsr ^ (lfsr >> 1)) & 1;
+                lfsr = (lfsr >> 1) | (bit << 14);
+                sample += (lfsr & 1) == 0 ? noiseEnv : -noiseEnv;
+                noiseEnv--;
+            }
+
+            // Kick: square dropping in pitch
+            if (kickEnv > 0) {
+                kickPhase += 120.0 * kickEnv / 3000 / SAMPLE_RATE;
+                if (kickPhase >= 1) kickPhase -= 1;
+                sample += kickPhase < 0.5 ? kickEnv : -kickEnv;
+                kickEnv -= 1;
+            }
+
+            // Envelope decay every 8 samples (integer envelopes keep the loop cheap)
+            if ((samplesLeft & 7) == 0) {
+                if (leadEnv > 0) leadEnv--;
+                if (bassEnv > 800) bassEnv--;
+            }
+            mix[i] += sample;
+        }
+    }
+
+    private void nextStep() {
+        samplesLeft = (int) (SAMPLE_RATE * 60 / bpm / 4);
+        step = (step + 1) % (STEPS_PER_BAR * BARS);
+        int bar = step / STEPS_PER_BAR;
+        int inBar = step % STEPS_PER_BAR;
+        if (inBar == 0 && bar % 2 == 0) rollMelody(bar);
+
+        int bass = BASS_PATTERN[inBar];
+        if (bass >= 0) {
+            bassInc = NOTE_INC[CHORD_ROOTS[bar] - 12 + bass];
+            bassEnv = 2400;
+        }
+        int note = melody[step % melody.length];
+        if (note >= 0) {
+            leadInc = NOTE_INC[note];
+            leadEnv = 1400;
+        }
+        if (inBar % 2 == 0) noiseEnv = 600;
+        if (inBar == 0 || inBar == 8) {
+            kickEnv = 3000;
+            kickPhase = 0;
+        }
+    }
+
+    // New two-bar melody over the chords at bar and bar + 1: chord tones on strong steps,
+    // occasional passing notes and rests elsewhere
+    private void rollMelody(int bar) {
+        for (int s = 0; s < melody.length; s++) {
+            int b = (bar + s / STEPS_PER_BAR) % BARS;
+            int[] tones = CHORD_TONES[b];
+            int root = CHORD_ROOTS[b] + 24;
+            int r = random.nextInt(8);
+            if (s % 4 == 0) {
+                melody[s] = root + tones[r % tones.length];
+            } else if (r < 3) {
+                melody[s] = -1;
+            } else if (r < 5) {
+                melody[s] = root + tones[r % tones.length] + 12;
+            } else {
+                melody[s] = s > 0 && melody[s - 1] >= 0 ? melody[s - 1] + (r == 5 ? 2 : -1) : -1;
+            }
+        }
+    }
+
+    // Headless mode: renders seconds of music into a new buffer (for benchmarks and checks)
+    public short[] renderSeconds(double seconds) {
+        int total = (int) (SAMPLE_RATE * seconds);
+        short[] out = new short[total];
+        int[] chunk = new int[512];
+        setPlaying(true);
+        for (int pos = 0; pos < total; pos += chunk.length) {
+            int n = Math.min(chunk.length, total - pos);
+            renderChunk(chunk, n);
+            for (int i = 0; i < n; i++) out[pos + i] = (short) Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, chunk[i]));
+        }
+        return out;
+    }
+
+    // Clears chunk and renders n samples into it
+    public void renderChunk(int[] chunk, int n) {
+        for (int i = 0; i < n; i++) chunk[i] = 0;
+        render(chunk, n);
+    }
+}
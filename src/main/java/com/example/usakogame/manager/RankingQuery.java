@@ -0,0 +1,103 @@
+package com.example.usakogame.manager;
+
+import java.util.Arrays;
+
+// One filtered view of a mode's ranking, for scrolling through leaderboards of any size.
+// Building it walks the ranking once (run it off the FX thread); rows are then read a page
+// at a time. It stays valid while runs are added (new runs just don't show up); after
+// clearAllData or a reload by another process it is stale and pages come back empty.
+public class RankingQuery {
+    private final RunHistory history;
+    private final int generation;
+    private final int[] positions; // Runs passing the filter, best first
+    private final int[] ranks;     // Their rank in the whole mode (1 = best)
+
+    private RankingQuery(RunHistory history, int[] positions, int[] ranks, int count) {
+        this.history = history;
+        this.generation = history.generation();
+        this.positions = Arrays.copyOf(positions, count);
+        this.ranks = Arrays.copyOf(ranks, count);
+    }
+
+    // player null = everyone; runs played in [fromMs, toMs)
+    static RankingQuery build(RunHistory history, String gameMode, String player, long fromMs, long toMs) {
+        int[] order = history.rankOrder(ScoreLog.modeId(gameMode));
+        int nameId = player == null ? -1 : history.findName(player);
+        if (player != null && nameId < 0) return new RankingQuery(history, order, order, 0);
+        int[] positions = new int[order.length];
+        int[] ranks = new int[order.length];
+        int n = 0;
+        for (int i = 0; i < order.length; i++) {
+            int pos = order[i];
+            if (nameId >= 0 && history.nameIdAt(pos) != nameId) continue;
+            long t = history.timestamp(pos);
+            if (t < fromMs || t >= toMs) continue;
+            positions[n] = pos;
+            ranks[n] = i + 1;
+            n++;
+        }
+        return new RankingQuery(history, positions, ranks, n);
+    }
+
+    public int size() {
+        return positions.length;
+    }
+
+    // Rows offset .. offset+limit-1 (fewer at the end; none once stale)
+    public Row[] page(int offset, int limit) {
+        synchronized (HighScoreManager.class) {
+            if (isStale()) return new Row[0];
+            int n = Math.max(0, Math.min(limit, positions.length - offset));
+            Row[] rows = new Row[n];
+            for (int i = 0; i < n; i++) {
+                int pos = positions[offset + i];
+                rows[i] = new Row(ranks[offset + i], history.name(pos), history.score(pos), history.timestamp(pos), history.runId(pos));
+            }
+            return rows;
+        }
+    }
+
+    // Index of a run in this view, -1 if it is not in it
+    public int indexOfRun(long runId) {
+        synchronized (HighScoreManager.class) {
+            if (isStale()) return -1;
+            for (int i = 0; i < positions.length; i++) {
+                if (history.runId(positions[i]) == runId) return i;
+            }
+            return -1;
+        }
+    }
+
+    // Index of a player's best run in this view, -1 if they have none in it
+    public int indexOfPlayer(String name) {
+        synchronized (HighScoreManager.class) {
+            if (isStale()) return -1;
+            int nameId = history.findName(name);
+            if (nameId < 0) return -1;
+            for (int i = 0; i < positions.length; i++) {
+                if (history.nameIdAt(positions[i]) == nameId) return i;
+            }
+            return -1;
+        }
+    }
+
+    private boolean isStale() {
+        return !HighScoreManager.isCurrent(history) || history.generation() != generation;
+    }
+
+    public static class Row {
+        public final int rank;
+        public final String name;
+        public final int score;
+        public final long timestamp;
+        public final long runId;
+
+        Row(int rank, String name, int score, long timestamp, long runId) {
+            this.rank = rank;
+            this.name = name;
+            this.score = score;
+            this.timestamp = timestamp;
+            this.runId = runId;
+        }
+    }
+}
@@ -0,0 +1,300 @@
+package com.example.usakogame.manager;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+// Every run in memory as parallel primitive arrays (about 30 bytes a run, no object per run),
+// indexed by position in the order played. Runs with a name are ranked: each mode keeps a
+// bounded heap of its TOP_K best for the game screens and a full ranking order that is built
+// lazily from a sorted base (seeded from runs.idx) plus the runs ranked since.
+// ScoreStats follows every change, so statistics never need a pass over the runs.
+// Not thread safe; HighScoreManager guards it.
+public class RunHistory {
+    public static final int TOP_K = 5;
+    private static final int MODES = ScoreLog.MODES.length;
+
+    private int size = 0;
+    private int generation = 0; // Bumped by clear(): positions handed out before are void
+    private long[] runIds = new long[256];
+    private byte[] modes = new byte[256];
+    private int[] scores = new int[256];
+    private long[] timestamps = new long[256];
+    private int[] durations = new int[256];
+    private int[] nameIds = new int[256]; // -1 = anonymous (not ranked)
+
+    private String[] names = new String[16];
+    private int nameCount = 0;
+    private final Map<String, Integer> nameIndex = new HashMap<>();
+
+    // Bounded min-heaps of positions: the worst of the best TOP_K sits at the root
+    private final int[][] topHeap = new int[MODES][TOP_K];
+    private final int[] topSize = new int[MODES];
+
+    // Full ranking: base (sorted positions below baseCovered) + positions ranked later
+    private final int[][] base = new int[MODES][];
+    private int baseCovered = 0;
+    private final int[][] promoted = new int[MODES][];
+    private final int[] promotedCount = new int[MODES];
+    private final int[][] order = new int[MODES][];
+
+    private final ScoreStats stats = new ScoreStats();
+    private int statsFrom = 0; // Runs below this are already in stats (loaded from stats.bin)
+
+    public RunHistory() {
+        for (int m = 0; m < MODES; m++) {
+            base[m] = new int[0];
+            promoted[m] = new int[16];
+        }
+    }
+
+    // Appends a run (name null = anonymous); returns its position
+    public int add(long runId, int mode, int score, long timestamp, int durationMs, String name) {
+        if (size == runIds.length) grow();
+        int pos = size++;
+        runIds[pos] = runId;
+        modes[pos] = (byte) mode;
+        scores[pos] = score;
+        timestamps[pos] = timestamp;
+        durations[pos] = durationMs;
+        nameIds[pos] = -1;
+        if (name != null) rank(pos, name);
+        if (pos >= statsFrom) stats.addRun(mode, score, timestamp, name);
+        return pos;
+    }
+
+    // Names a run from the game over screen, which puts it in the ranking
+    public void setName(long runId, String name) {
+        int pos = find(runId);
+        if (pos < 0 || name == null) return;
+        if (nameIds[pos] >= 0) {
+            nameIds[pos] = nameId(name); // Renamed: stats keep counting it for the first name
+        } else {
+            rank(pos, name);
+            stats.addName(modes[pos], scores[pos], timestamps[pos], name);
+        }
+    }
+
+    private void rank(int pos, String name) {
+        nameIds[pos] = nameId(name);
+        int m = modes[pos];
+        offerTop(m, pos);
+        if (pos < baseCovered) {
+            if (promotedCount[m] == promoted[m].length) promoted[m] = Arrays.copyOf(promoted[m], promotedCount[m] * 2);
+            promoted[m][promotedCount[m]++] = pos;
+        }
+        order[m] = null;
+    }
+
+    public void clear() {
+        size = 0;
+        generation++;
+        baseCovered = 0;
+        statsFrom = 0;
+        stats.clear();
+        for (int m = 0; m < MODES; m++) {
+            topSize[m] = 0;
+            base[m] = new int[0];
+            promotedCount[m] = 0;
+            order[m] = null;
+        }
+    }
+
+    // Latest runs are the likeliest targets, so search backwards
+    public int find(long runId) {
+        for (int i = size - 1; i >= 0; i--) {
+            if (runIds[i] == runId) return i;
+        }
+        return -1;
+    }
+
+    public int size() { return size; }
+    public int generation() { return generation; }
+    public long runId(int pos) { return runIds[pos]; }
+    public int mode(int pos) { return modes[pos]; }
+    public int score(int pos) { return scores[pos]; }
+    public long timestamp(int pos) { return timestamps[pos]; }
+    public int duration(int pos) { return durations[pos]; }
+    public String name(int pos) { return nameIds[pos] < 0 ? null : names[nameIds[pos]]; }
+    public boolean isRanked(int pos) { return nameIds[pos] >= 0; }
+    public int nameIdAt(int pos) { return nameIds[pos]; }
+
+    // Interned id of a name, -1 if no run has it
+    public int findName(String name) {
+        Integer id = nameIndex.get(name);
+        return id == null ? -1 : id;
+    }
+
+    // The TOP_K best ranked positions of mode, best first
+    public int[] top(int mode) {
+        int[] result = Arrays.copyOf(topHeap[mode], topSize[mode]);
+        sortByRank(result);
+        return result;
+    }
+
+    // Every ranked position of mode, best first (ties: older run first). Cached until the next change.
+    public int[] rankOrder(int mode) {
+        if (order[mode] != null) return order[mode];
+        // Ranked runs not in the base: those added after it, and older runs named later
+        int tailCount = promotedCount[mode];
+        for (int i = baseCovered; i < size; i++) {
+            if (modes[i] == mode && nameIds[i] >= 0) tailCount++;
+        }
+        int[] tail = new int[tailCount];
+        int t = 0;
+        for (int i = 0; i < promotedCount[mode]; i++) tail[t++] = promoted[mode][i];
+        for (int i = baseCovered; i < size; i++) {
+            if (modes[i] == mode && nameIds[i] >= 0) tail[t++] = i;
+        }
+        sortByRank(tail);
+
+        // Merge the sorted base and tail
+        int[] b = base[mode];
+        int[] merged = new int[b.length + tail.length];
+        int i = 0, j = 0, k = 0;
+        while (i < b.length && j < tail.length) merged[k++] = rankKey(b[i]) <= rankKey(tail[j]) ? b[i++] : tail[j++];
+        while (i < b.length) merged[k++] = b[i++];
+        while (j < tail.length) merged[k++] = tail[j++];
+        order[mode] = merged;
+        return merged;
+    }
+
+    // Adopts a ranking order for positions below covered (from runs.idx)
+    public void seedRankOrder(int mode, int[] sorted, int covered) {
+        boolean[] inBase = new boolean[covered];
+        for (int pos : sorted) {
+            if (pos < 0 || pos >= covered || modes[pos] != mode || nameIds[pos] < 0) return; // Doesn't match the log
+            inBase[pos] = true;
+        }
+        base[mode] = sorted;
+        baseCovered = covered;
+        // Older runs named after the index was written
+        promotedCount[mode] = 0;
+        for (int i = 0; i < covered; i++) {
+            if (modes[i] != mode || nameIds[i] < 0 || inBase[i]) continue;
+            if (promotedCount[mode] == promoted[mode].length) promoted[mode] = Arrays.copyOf(promoted[mode], promotedCount[mode] * 2);
+            promoted[mode][promotedCount[mode]++] = i;
+        }
+        order[mode] = null;
+    }
+
+    public ScoreStats stats() {
+        return stats;
+    }
+
+    // Stats were loaded for the first covered runs; add() skips those
+    void setStatsFrom(int covered) {
+        statsFrom = covered;
+    }
+
+    int getStatsFrom() {
+        return statsFrom;
+    }
+
+    // Recomputes stats from the runs (a stats.bin that did not match the log)
+    void rebuildStats() {
+        stats.clear();
+        for (int i = 0; i < size; i++) stats.addRun(modes[i], scores[i], timestamps[i], name(i));
+        statsFrom = 0;
+    }
+
+    // The runs as plain array copies, cheap enough to take under HighScoreManager's lock
+    // (a few ms at 300k runs); Columns.build() makes the independent copy the writer thread
+    // compacts from, with its rankings and stats, after the lock is released
+    public Columns columns() {
+        return new Columns(size, Arrays.copyOf(runIds, size), Arrays.copyOf(modes, size), Arrays.copyOf(scores, size),
+                Arrays.copyOf(timestamps, size), Arrays.copyOf(durations, size), Arrays.copyOf(nameIds, size),
+                Arrays.copyOf(names, nameCount));
+    }
+
+    public static final class Columns {
+        private final int size;
+        private final long[] runIds;
+        private final byte[] modes;
+        private final int[] scores;
+        private final long[] timestamps;
+        private final int[] durations;
+        private final int[] nameIds;
+        private final String[] names;
+
+        private Columns(int size, long[] runIds, byte[] modes, int[] scores, long[] timestamps, int[] durations,
+                        int[] nameIds, String[] names) {
+            this.size = size;
+            this.runIds = runIds;
+            this.modes = modes;
+            this.scores = scores;
+            this.timestamps = timestamps;
+            this.durations = durations;
+            this.nameIds = nameIds;
+            this.names = names;
+        }
+
+        public RunHistory build() {
+            RunHistory c = new RunHistory();
+            for (int i = 0; i < size; i++) {
+                c.add(runIds[i], modes[i], scores[i], timestamps[i], durations[i], nameIds[i] < 0 ? null : names[nameIds[i]]);
+            }
+            return c;
+        }
+    }
+
+    // Smaller key = better rank: higher score first, then the older run
+    private long rankKey(int pos) {
+        return ((long) (Integer.MAX_VALUE - scores[pos]) << 32) | pos;
+    }
+
+    private void sortByRank(int[] positions) {
+        long[] keys = new long[positions.length];
+        for (int i = 0; i < positions.length; i++) keys[i] = rankKey(positions[i]);
+        Arrays.sort(keys);
+        for (int i = 0; i < positions.length; i++) positions[i] = (int) keys[i];
+    }
+
+    private void offerTop(int m, int pos) {
+        int[] heap = topHeap[m];
+        if (topSize[m] < TOP_K) {
+            int i = topSize[m]++;
+            heap[i] = pos;
+            while (i > 0 && rankKey(heap[(i - 1) / 2]) < rankKey(heap[i])) {
+                swap(heap, i, (i - 1) / 2);
+                i = (i - 1) / 2;
+            }
+        } else if (rankKey(pos) < rankKey(heap[0])) {
+            heap[0] = pos;
+            int i = 0;
+            while (true) {
+                int l = 2 * i + 1, r = l + 1, worst = i;
+                if (l < TOP_K && rankKey(heap[l]) > rankKey(heap[worst])) worst = l;
+                if (r < TOP_K && rankKey(heap[r]) > rankKey(heap[worst])) worst = r;
+                if (worst == i) break;
+                swap(heap, i, worst);
+                i = worst;
+            }
+        }
+    }
+
+    private static void swap(int[] a, int i, int j) {
+        int t = a[i];
+        a[i] = a[j];
+        a[j] = t;
+    }
+
+    private int nameId(String name) {
+        Integer id = nameIndex.get(name);
+        if (id != null) return id;
+        if (nameCount == names.length) names = Arrays.copyOf(names, nameCount * 2);
+        names[nameCount] = name;
+        nameIndex.put(name, nameCount);
+        return nameCount++;
+    }
+
+    private void grow() {
+        int n = runIds.length * 2;
+        runIds = Arrays.copyOf(runIds, n);
+        modes = Arrays.copyOf(modes, n);
+        scores = Arrays.copyOf(scores, n);
+        timestamps = Arrays.copyOf(timestamps, n);
+        durations = Arrays.copyOf(durations, n);
+        nameIds = Arrays.copyOf(nameIds, n);
+    }
+}
@@ -0,0 +1,395 @@
+package com.example.usakogame.manager;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+// Append-only binary log of every run ever played (runs.log in the data directory).
+// Records are a fixed 64 bytes, so appending is one write at the end of the file and
+// startup recovery is a linear scan over a memory-mapped file. A record whose CRC does
+// not match (a write torn by a crash) ends the log and is cut off.
+//
+// Record layout (little endian):
+//   0 type (RUN, NAME, CLEAR)   1 mode id   2 name length   3 unused
+//   4 score   8 timestamp (epoch ms)   16 duration (ms)   20 unused
+//   24 run id (unique, survives compaction)   32 name (UTF-8, up to 28 bytes)   60 CRC32 of bytes 0-59
+//
+// NAME records attach the name typed on the game over screen to an earlier RUN; CLEAR drops
+// everything before it. Compaction rewrites the log as plain RUN records (names folded in,
+// cleared runs gone) and writes runs.idx, the per-mode ranking order of the compacted runs,
+// and stats.bin, the ScoreStats of the compacted runs.
+//
+// Several game processes may share the files: every read or write happens between lock()
+// and unlock(), which hold an exclusive lock on runs.lock (the log itself is replaced by
+// compaction, so it cannot carry the lock). readNew() picks up what other processes appended.
+public class ScoreLog {
+    public static final byte RUN = 1;
+    public static final byte NAME = 2;
+    public static final byte CLEAR = 3;
+
+    public static final String[] MODES = { "flappy", "runner" };
+
+    static final int RECORD_SIZE = 64;
+    private static final int NAME_BYTES = 28;
+    private static final int IDX_MAGIC = 0x55534B49; // "USKI"
+    private static final int IDX_VERSION = 1;
+    private static final int STATS_MAGIC = 0x55534B53; // "USKS", bump on format changes
+
+    private final Path logPath;
+    private final Path idxPath;
+    private final Path lockPath;
+    private final Path statsPath;
+    private FileChannel lockChannel;
+    private FileLock fileLock;
+    private FileChannel channel; // Open only while locked
+    private long records = 0;    // Records of the file already applied to the history
+    private int lastCrc = 0;     // CRC of the last of them; a mismatch means another process compacted
+
+    public ScoreLog(Path dir) {
+        this.logPath = dir.resolve("runs.log");
+        this.idxPath = dir.resolve("runs.idx");
+        this.lockPath = dir.resolve("runs.lock");
+        this.statsPath = dir.resolve("stats.bin");
+    }
+
+    public static int modeId(String mode) {
+        for (int i = 0; i < MODES.length; i++) {
+            if (MODES[i].equals(mode)) return i;
+        }
+        throw new IllegalArgumentException("Unknown game mode: " + mode);
+    }
+
+    public Path getPath() {
+        return logPath;
+    }
+
+    public boolean exists() {
+        return Files.exists(logPath);
+    }
+
+    public long getRecordCount() {
+        return records;
+    }
+
+    // Blocks until no other process is using the log, then opens it
+    public void lock() throws IOException {
+        if (lockChannel == null) {
+            Files.createDirectories(logPath.getParent());
+            lockChannel = FileChannel.open(lockPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        }
+        fileLock = lockChannel.lock();
+        try {
+            channel = FileChannel.open(logPath, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        } catch (IOException e) {
+            fileLock.release();
+            throw e;
+        }
+    }
+
+    // Closes the log and lets other processes in
+    public void unlock() throws IOException {
+        try {
+            channel.close();
+            channel = null;
+        } finally {
+            fileLock.release();
+        }
+    }
+
+    // Replays the whole log into a new history (startup, or after another process compacted).
+    // A torn tail is truncated. Call while locked.
+    public RunHistory reload() throws IOException {
+        RunHistory history = new RunHistory();
+        long statsLastRunId = loadStats(history);
+        long size = channel.size();
+        records = 0;
+        lastCrc = 0;
+        if (size >= RECORD_SIZE) {
+            MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, 0, size - size % RECORD_SIZE);
+            map.order(ByteOrder.LITTLE_ENDIAN);
+            scan(map, history);
+        }
+        dropTornTail(size);
+        loadIndex(history);
+        checkStats(history, statsLastRunId);
+        return history;
+    }
+
+    // Records appended by other processes since the last call, or null if the log was replaced
+    // (compacted elsewhere) and must be reloaded. Call while locked.
+    public ByteBuffer readNew() throws IOException {
+        long known = records * RECORD_SIZE;
+        long size = channel.size();
+        if (size < known) return null;
+        if (records > 0) {
+            ByteBuffer crc = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+            channel.read(crc, known - 4);
+            if (crc.getInt(0) != lastCrc) return null;
+        }
+        ByteBuffer fresh = ByteBuffer.allocate((int) (size - known - (size - known) % RECORD_SIZE)).order(ByteOrder.LITTLE_ENDIAN);
+        while (fresh.hasRemaining() && channel.read(fresh, known + fresh.position()) >= 0) { }
+        fresh.flip();
+        long before = records;
+        scan(fresh, null);
+        fresh.limit((int) ((records - before) * RECORD_SIZE));
+        dropTornTail(size);
+        return fresh.position(0);
+    }
+
+    // Checks records from the buffer position, applying them to history if given, until a bad one
+    private void scan(ByteBuffer buf, RunHistory history) {
+        CRC32 crc = new CRC32();
+        byte[] name = new byte[NAME_BYTES];
+        while (buf.remaining() >= RECORD_SIZE) {
+            int at = buf.position();
+            // Bulk update over the buffer (intrinsic for mapped memory), no copy
+            crc.reset();
+            int limit = buf.limit();
+            buf.limit(at + RECORD_SIZE - 4);
+            crc.update(buf);
+            buf.limit(limit);
+            int sum = buf.getInt(at + 60);
+            if ((int) crc.getValue() != sum || !validType(buf.get(at))) break;
+            if (history != null) apply(buf, at, name, history);
+            buf.position(at + RECORD_SIZE);
+            records++;
+            lastCrc = sum;
+        }
+    }
+
+    // Only a crashed writer leaves bytes past the last good record (writers hold the lock)
+    private void dropTornTail(long size) throws IOException {
+        long valid = records * RECORD_SIZE;
+        if (valid != size) {
+            System.err.println("Score log: dropping " + (size - valid) + " damaged bytes at the end");
+            channel.truncate(valid);
+        }
+    }
+
+    private static boolean validType(byte type) {
+        return type == RUN || type == NAME || type == CLEAR;
+    }
+
+    // Applies records already checked by readNew (or encoded here); true if one was a CLEAR
+    public static boolean apply(ByteBuffer batch, RunHistory history) {
+        boolean cleared = false;
+        byte[] name = new byte[NAME_BYTES];
+        batch = batch.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        for (int at = batch.position(); at + RECORD_SIZE <= batch.limit(); at += RECORD_SIZE) {
+            cleared |= batch.get(at) == CLEAR;
+            apply(batch, at, name, history);
+        }
+        return cleared;
+    }
+
+    private static void apply(ByteBuffer buf, int at, byte[] name, RunHistory history) {
+        int nameLen = Math.min(buf.get(at + 2) & 0xFF, NAME_BYTES);
+        for (int i = 0; i < nameLen; i++) name[i] = buf.get(at + 32 + i);
+        String n = nameLen == 0 ? null : new String(name, 0, nameLen, StandardCharsets.UTF_8);
+        switch (buf.get(at)) {
+            case RUN:
+                history.add(buf.getLong(at + 24), buf.get(at + 1), buf.getInt(at + 4), buf.getLong(at + 8), buf.getInt(at + 16), n);
+                break;
+            case NAME:
+                history.setName(buf.getLong(at + 24), n);
+                break;
+            case CLEAR:
+                history.clear();
+                break;
+        }
+    }
+
+    // Appends encoded records at the end of the log. Call while locked, after readNew.
+    public void append(ByteBuffer batch) throws IOException {
+        if (!batch.hasRemaining()) return;
+        long n = batch.remaining() / RECORD_SIZE;
+        int crc = batch.order(ByteOrder.LITTLE_ENDIAN).getInt(batch.limit() - 4);
+        long pos = records * RECORD_SIZE;
+        while (batch.hasRemaining()) pos += channel.write(batch, pos);
+        channel.force(false);
+        records += n;
+        lastCrc = crc;
+    }
+
+    public static ByteBuffer encodeRun(long runId, int mode, int score, long timestamp, int durationMs, String name) {
+        return encode(RUN, runId, mode, score, timestamp, durationMs, name);
+    }
+
+    public static ByteBuffer encodeName(long runId, String name) {
+        return encode(NAME, runId, 0, 0, 0, 0, name);
+    }
+
+    public static ByteBuffer encodeClear() {
+        return encode(CLEAR, 0, 0, 0, System.currentTimeMillis(), 0, null);
+    }
+
+    private static ByteBuffer encode(byte type, long runId, int mode, int score, long timestamp, int durationMs, String name) {
+        byte[] nameBytes = truncate(name);
+        ByteBuffer b = ByteBuffer.allocate(RECORD_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        b.put(0, type).put(1, (byte) mode).put(2, (byte) nameBytes.length);
+        b.putInt(4, score).putLong(8, timestamp).putInt(16, durationMs).putLong(24, runId);
+        b.put(32, nameBytes);
+        CRC32 crc = new CRC32();
+        crc.update(b.array(), 0, RECORD_SIZE - 4);
+        b.putInt(60, (int) crc.getValue());
+        return b;
+    }
+
+    // UTF-8 bytes of name, cut at a character boundary to fit the record
+    private static byte[] truncate(String name) {
+        if (name == null) return new byte[0];
+        byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length <= NAME_BYTES) return bytes;
+        int len = NAME_BYTES;
+        while (len > 0 && (bytes[len] & 0xC0) == 0x80) len--; // Don't split a multi-byte char
+        byte[] cut = new byte[len];
+        System.arraycopy(bytes, 0, cut, 0, len);
+        return cut;
+    }
+
+    // Rewrites the log from history (every live run, names folded in) and writes the index.
+    // Temp file + atomic rename: a crash leaves either the old or the new log. Call while locked,
+    // after readNew, with a history that holds everything in the file.
+    public void compact(RunHistory history) throws IOException {
+        Path tmp = Files.createTempFile(logPath.getParent(), "runs-", ".tmp");
+        int n = history.size();
+        int crc = 0;
+        try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+            ByteBuffer chunk = ByteBuffer.allocate(RECORD_SIZE * 256);
+            for (int i = 0; i < n; i++) {
+                ByteBuffer record = encodeRun(history.runId(i), history.mode(i), history.score(i),
+                        history.timestamp(i), history.duration(i), history.name(i));
+                crc = record.getInt(60);
+                chunk.put(record);
+                if (!chunk.hasRemaining()) {
+                    chunk.flip();
+                    while (chunk.hasRemaining()) out.write(chunk);
+                    chunk.clear();
+                }
+            }
+            chunk.flip();
+            while (chunk.hasRemaining()) out.write(chunk);
+            out.force(true);
+        }
+        move(tmp, logPath);
+        channel.close();
+        channel = FileChannel.open(logPath, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        records = n;
+        lastCrc = crc;
+        writeIndex(history, n);
+        writeStats(history, n);
+    }
+
+    // runs.idx: record count it covers and the last covered run id (to detect a stale index),
+    // then per mode the ranked run positions, best first
+    private void writeIndex(RunHistory history, int covered) throws IOException {
+        int[][] order = new int[MODES.length][];
+        int total = 0;
+        for (int m = 0; m < MODES.length; m++) {
+            order[m] = history.rankOrder(m);
+            total += order[m].length;
+        }
+        ByteBuffer b = ByteBuffer.allocate(4 * (5 + MODES.length + total)).order(ByteOrder.LITTLE_ENDIAN);
+        b.putInt(IDX_MAGIC).putInt(IDX_VERSION).putInt(covered).putLong(covered > 0 ? history.runId(covered - 1) : 0);
+        for (int[] o : order) {
+            b.putInt(o.length);
+            for (int pos : o) b.putInt(pos);
+        }
+        b.flip();
+        Path tmp = Files.createTempFile(idxPath.getParent(), "runs-", ".tmp");
+        try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+            while (b.hasRemaining()) out.write(b);
+            out.force(true);
+        }
+        move(tmp, idxPath);
+    }
+
+    // Seeds the ranking order of the compacted prefix from runs.idx, so startup does not sort
+    private void loadIndex(RunHistory history) {
+        if (!Files.isRegularFile(idxPath)) return;
+        try (FileChannel ch = FileChannel.open(idxPath, StandardOpenOption.READ)) {
+            MappedByteBuffer map = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+            map.order(ByteOrder.LITTLE_ENDIAN);
+            if (map.getInt() != IDX_MAGIC || map.getInt() != IDX_VERSION) return;
+            int covered = map.getInt();
+            long lastRunId = map.getLong();
+            if (covered == 0 || covered > history.size() || history.runId(covered - 1) != lastRunId) return; // Stale
+            for (int m = 0; m < MODES.length; m++) {
+                int[] order = new int[map.getInt()];
+                for (int i = 0; i < order.length; i++) order[i] = map.getInt();
+                history.seedRankOrder(m, order, covered);
+            }
+        } catch (Exception e) {
+            System.err.println("Score index ignored: " + e.getMessage());
+        }
+    }
+
+    // stats.bin: like runs.idx, the record count and last run id it covers, then ScoreStats
+    private void writeStats(RunHistory history, int covered) throws IOException {
+        Path tmp = Files.createTempFile(statsPath.getParent(), "stats-", ".tmp");
+        try (FileOutputStream fos = new FileOutputStream(tmp.toFile());
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fos))) {
+            out.writeInt(STATS_MAGIC);
+            out.writeInt(covered);
+            out.writeLong(covered > 0 ? history.runId(covered - 1) : 0);
+            history.stats().write(out);
+            out.flush();
+            fos.getChannel().force(true);
+        }
+        move(tmp, statsPath);
+    }
+
+    // Loads stats for the compacted prefix before the scan, so only later runs are aggregated.
+    // Returns the last covered run id, checked once the log is read.
+    private long loadStats(RunHistory history) {
+        if (!Files.isRegularFile(statsPath)) return 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(statsPath)))) {
+            if (in.readInt() != STATS_MAGIC) return 0;
+            int covered = in.readInt();
+            long lastRunId = in.readLong();
+            history.stats().read(in);
+            history.setStatsFrom(covered);
+            return lastRunId;
+        } catch (IOException e) {
+            System.err.println("Score stats ignored: " + e.getMessage());
+            history.rebuildStats();
+            return 0;
+        }
+    }
+
+    // The loaded stats must describe the first runs of this log, else they are recomputed
+    private static void checkStats(RunHistory history, long lastRunId) {
+        int covered = history.getStatsFrom();
+        if (covered == 0) return;
+        if (covered > history.size() || history.runId(covered - 1) != lastRunId) history.rebuildStats();
+        history.setStatsFrom(0);
+    }
+
+    private static void move(Path from, Path to) throws IOException {
+        try {
+            Files.move(from, to, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(from, to, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    public void close() throws IOException {
+        if (lockChannel != null) lockChannel.close();
+        lockChannel = null;
+    }
+}
@@ -0,0 +1,243 @@
+package com.example.usakogame.manager;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Running statistics per mode (every run) and per player and mode (named runs), updated one
+// run at a time. Each aggregate has a fixed size whatever the number of runs: counters, an
+// HDR-style histogram for quantiles and the last DAYS days of play. Not thread safe; lives
+// in RunHistory.
+public class ScoreStats {
+    public static final int DAYS = 30;
+    private static final int MODES = ScoreLog.MODES.length;
+
+    // Histogram: exact below 64, then 32 buckets per power of two (under 3% error)
+    private static final int EXACT = 64;
+    private static final int SUB_BITS = 5;
+    private static final int BUCKETS = EXACT + (31 - 6) * (1 << SUB_BITS);
+    private static final long DAY_MS = 86_400_000L;
+
+    private final Aggregate[] modes = new Aggregate[MODES];
+    private final Map<String, Aggregate[]> players = new HashMap<>();
+
+    public ScoreStats() {
+        for (int m = 0; m < MODES; m++) modes[m] = new Aggregate();
+    }
+
+    // A finished run; name null = anonymous (counts for the mode only)
+    public void addRun(int mode, int score, long timestamp, String name) {
+        int day = day(timestamp);
+        modes[mode].add(score, day);
+        if (name != null) addName(mode, score, timestamp, name);
+    }
+
+    // An earlier anonymous run that got a name
+    public void addName(int mode, int score, long timestamp, String name) {
+        player(name, mode).add(score, day(timestamp));
+    }
+
+    public void clear() {
+        for (int m = 0; m < MODES; m++) modes[m] = new Aggregate();
+        players.clear();
+    }
+
+    // Statistics of a mode, for one player or (name null) every run
+    public Summary summary(int mode, String name) {
+        Aggregate a = name == null ? modes[mode] : playerOrNull(name, mode);
+        return a == null ? new Summary(new Aggregate()) : new Summary(a);
+    }
+
+    public List<String> playerNames() {
+        List<String> names = new ArrayList<>(players.keySet());
+        names.sort(null);
+        return names;
+    }
+
+    private Aggregate player(String name, int mode) {
+        Aggregate[] a = players.computeIfAbsent(name, k -> new Aggregate[MODES]);
+        if (a[mode] == null) a[mode] = new Aggregate();
+        return a[mode];
+    }
+
+    private Aggregate playerOrNull(String name, int mode) {
+        Aggregate[] a = players.get(name);
+        return a == null ? null : a[mode];
+    }
+
+    public static int today() {
+        return day(System.currentTimeMillis());
+    }
+
+    // Local calendar day, so streaks and the daily histogram follow the arcade's clock
+    static int day(long timestamp) {
+        long offset = ZoneId.systemDefault().getRules().getOffset(Instant.ofEpochMilli(timestamp)).getTotalSeconds() * 1000L;
+        return (int) Math.floorDiv(timestamp + offset, DAY_MS);
+    }
+
+    static int bucket(int score) {
+        if (score < EXACT) return Math.max(score, 0);
+        int exp = 31 - Integer.numberOfLeadingZeros(score); // >= 6
+        int sub = (score >>> (exp - SUB_BITS)) & ((1 << SUB_BITS) - 1);
+        return EXACT + (exp - 6) * (1 << SUB_BITS) + sub;
+    }
+
+    // Middle of the scores falling in the bucket
+    static int bucketValue(int bucket) {
+        if (bucket < EXACT) return bucket;
+        int exp = 6 + (bucket - EXACT) / (1 << SUB_BITS);
+        int sub = (bucket - EXACT) % (1 << SUB_BITS);
+        int width = 1 << (exp - SUB_BITS);
+        return ((1 << SUB_BITS) + sub) * width + width / 2;
+    }
+
+    public void write(DataOutput out) throws IOException {
+        for (Aggregate a : modes) a.write(out);
+        out.writeInt(players.size());
+        for (Map.Entry<String, Aggregate[]> e : players.entrySet()) {
+            out.writeUTF(e.getKey());
+            for (Aggregate a : e.getValue()) {
+                out.writeBoolean(a != null);
+                if (a != null) a.write(out);
+            }
+        }
+    }
+
+    public void read(DataInput in) throws IOException {
+        clear();
+        for (int m = 0; m < MODES; m++) modes[m].read(in);
+        int n = in.readInt();
+        for (int i = 0; i < n; i++) {
+            Aggregate[] a = new Aggregate[MODES];
+            players.put(in.readUTF(), a);
+            for (int m = 0; m < MODES; m++) {
+                if (!in.readBoolean()) continue;
+                a[m] = new Aggregate();
+                a[m].read(in);
+            }
+        }
+    }
+
+    private static class Aggregate {
+        long runs = 0;
+        long sum = 0;
+        int best = 0;
+        int[] buckets; // Allocated with the first run
+        int lastDay = Integer.MIN_VALUE;
+        int streak = 0;
+        int bestStreak = 0;
+        final int[] daily = new int[DAYS]; // Runs per day, ring indexed by day % DAYS
+        int newestDay = Integer.MIN_VALUE;
+
+        void add(int score, int day) {
+            if (buckets == null) buckets = new int[BUCKETS];
+            runs++;
+            sum += score;
+            if (runs == 1 || score > best) best = score;
+            buckets[bucket(score)]++;
+
+            // Streak of consecutive days played (runs arrive in time order, older ones are skipped)
+            if (day > lastDay) {
+                streak = day == lastDay + 1 ? streak + 1 : 1;
+                lastDay = day;
+                if (streak > bestStreak) bestStreak = streak;
+            }
+
+            if (day > newestDay) {
+                // Clear the days skipped since the newest one
+                long gap = newestDay == Integer.MIN_VALUE ? DAYS : Math.min((long) day - newestDay, DAYS);
+                for (int i = 0; i < gap; i++) daily[Math.floorMod(day - i, DAYS)] = 0;
+                newestDay = day;
+            }
+            if (day > newestDay - DAYS) daily[Math.floorMod(day, DAYS)]++;
+        }
+
+        // Constant time: one pass over the fixed number of buckets
+        int quantile(double q) {
+            if (runs == 0) return 0;
+            long target = Math.max(1, (long) Math.ceil(q * runs));
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += buckets[i];
+                if (seen >= target) return Math.min(bucketValue(i), best);
+            }
+            return best;
+        }
+
+        void write(DataOutput out) throws IOException {
+            out.writeLong(runs);
+            out.writeLong(sum);
+            out.writeInt(best);
+            out.writeInt(lastDay);
+            out.writeInt(streak);
+            out.writeInt(bestStreak);
+            out.writeInt(newestDay);
+            for (int d : daily) out.writeInt(d);
+            int used = 0;
+            if (buckets != null) {
+                for (int b : buckets) if (b != 0) used++;
+            }
+            out.writeShort(used);
+            for (int i = 0; used > 0 && i < BUCKETS; i++) {
+                if (buckets[i] == 0) continue;
+                out.writeShort(i);
+                out.writeInt(buckets[i]);
+            }
+        }
+
+        void read(DataInput in) throws IOException {
+            runs = in.readLong();
+            sum = in.readLong();
+            best = in.readInt();
+            lastDay = in.readInt();
+            streak = in.readInt();
+            bestStreak = in.readInt();
+            newestDay = in.readInt();
+            for (int i = 0; i < DAYS; i++) daily[i] = in.readInt();
+            int used = in.readShort();
+            if (runs > 0) buckets = new int[BUCKETS];
+            for (int i = 0; i < used; i++) {
+                int b = in.readShort();
+                buckets[b] = in.readInt();
+            }
+        }
+    }
+
+    // Read-only figures for the ranking screen
+    public static class Summary {
+        public final long runs;
+        public final double mean;
+        public final int median;
+        public final int p90;
+        public final int p99;
+        public final int best;
+        public final int bestStreak;   // Most consecutive days played
+        public final int[] daily;      // Runs per day, oldest first, ending at the newest day played
+        public final int newestDay;    // Epoch day of the last entry of daily
+
+        Summary(Aggregate a) {
+            runs = a.runs;
+            mean = a.runs == 0 ? 0 : (double) a.sum / a.runs;
+            median = a.quantile(0.5);
+            p90 = a.quantile(0.9);
+            p99 = a.quantile(0.99);
+            best = a.best;
+            bestStreak = a.bestStreak;
+            daily = new int[DAYS];
+            for (int i = 0; i < DAYS; i++) daily[i] = a.daily[Math.floorMod(a.newestDay - (DAYS - 1) + i, DAYS)];
+            newestDay = a.newestDay;
+        }
+
+        // Runs played on an epoch day (0 outside the DAYS kept)
+        public int runsOn(int day) {
+            long i = (long) day - newestDay + DAYS - 1;
+            return i >= 0 && i < DAYS ? daily[(int) i] : 0;
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.usakogame.manager;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.ShortBuffer;
+import java.util.Random;
+
+// Every sound effect, synthesized once when the bank is created and kept as read-only
+// 16-bit PCM in direct buffers. Triggering an effect only hands a shared buffer to the
+// AudioEngine, so nothing is computed or allocated on the trigger path.
+public class SoundBank {
+    private static final float SAMPLE_RATE = AudioEngine.SAMPLE_RATE;
+
+    // Score ping variants for combos: the base ping raised along a major scale
+    public static final int SCORE_VARIANTS = 8;
+    private static final int[] SCALE_STEPS = { 0, 2, 4, 5, 7, 9, 11, 12 };
+
+    private final ShortBuffer jump;
+    private final ShortBuffer[] score = new ShortBuffer[SCORE_VARIANTS];
+    private final ShortBuffer gameOver;
+    private long byteSize = 0;
+
+    public SoundBank() {
+        long start = System.nanoTime();
+        // Rising tone: 300Hz -> 600Hz, 100ms
+        jump = store(synthTone(300, 600, 100, 0.5));
+        // High ping: 1200Hz -> 1800Hz, 80ms
+        for (int i = 0; i < SCORE_VARIANTS; i++) {
+            double pitch = Math.pow(2, SCALE_STEPS[i] / 12.0);
+            score[i] = store(synthTone(1200 * pitch, 1800 * pitch, 80, 0.4));
+        }
+        // Low noise/slide, 400ms (fixed seed: the same crash sound every time)
+        gameOver = store(synthNoise(400, new Random(400)));
+        System.out.printf("Sound bank: %d effects, %d KB in %d ms%n",
+                2 + SCORE_VARIANTS, byteSize / 1024, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    public ShortBuffer jump() {
+        return jump;
+    }
+
+    // Score ping for the given combo count (0 = base pitch); cycles through the scale
+    public ShortBuffer score(int combo) {
+        return score[Math.floorMod(combo, SCORE_VARIANTS)];
+    }
+
+    public ShortBuffer gameOver() {
+        return gameOver;
+    }
+
+    // Off-heap bytes held by all effects
+    public long getByteSize() {
+        return byteSize;
+    }
+
+    private ShortBuffer store(short[] samples) {
+        ShortBuffer buf = ByteBuffer.allocateDirect(samples.length * 2).order(ByteOrder.nativeOrder()).asShortBuffer();
+        buf.put(samples).flip();
+        byteSize += samples.length * 2L;
+        return buf.asReadOnlyBuffer();
+    }
+
+    static short[] synthTone(double startHz, double endHz, int ms, double volume) {
+        float sampleRate = SAMPLE_RATE;
+        int numSamples = (int)(sampleRate * ms / 1000);
+        short[] buf = new short[numSamples]; // 16-bit mono
+        
+        double phase = 0;
+        for (int i=0; i<numSamples; i++) {
+            double progress = i / (double)numSamples;
+            double currentFreq = startHz + (endHz - startHz) * progress;
+            
+            double pitch = currentFreq / sampleRate;
+            phase += pitch;
+            
+            double angle = 2.0 * Math.PI * phase;
+            double value = Math.sin(angle);
+            
+            // Simple decay
+            double decay = (1.0 - progress);
+            
+            // Scale to 16-bit range (max 32767)
+            buf[i] = (short)(value * volume * 20000 * decay); 
+        }
+        return buf;
+    }
+
+    static short[] synthNoise(int ms, Random r) {
+        float sampleRate = SAMPLE_RATE;
+        int numSamples = (int)(sampleRate * ms / 1000);
+        short[] buf = new short[numSamples];
+        
+        for (int i=0; i<numSamples; i++) {
+             // White noise: -1.0 to 1.0
+             double value = (r.nextDouble() * 2.0) - 1.0;
+             
+             // Decay
+             double progress = (double)i / numSamples;
+             double decay = 1.0 - progress;
+             
+             buf[i] = (short)(value * 0.2 * 20000 * decay);
+        }
+        return buf;
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.usakogame.render;
+
+import javafx.geometry.Bounds;
+import javafx.scene.Group;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.WritableImage;
+import javafx.scene.paint.Color;
+import javafx.scene.shape.Rectangle;
+import javafx.scene.text.Font;
+import javafx.scene.text.Text;
+
+// The digits 0-9 of one font and colour rasterized side by side into one image, so a
+// number is drawn as one drawImage per digit without building a String. Like TextImage,
+// rebuilt only when the font or output scale changes; FX thread only.
+public class DigitFont {
+    private final Color color;
+    private Font font;
+
+    private WritableImage image;
+    private double builtScale;
+    private final double[] advance = new double[10];
+    private double cell, pad;     // Logical width of each digit's cell and glyph inset
+    private double top, cellH;    // Cell top relative to the baseline, cell height
+
+    public DigitFont(Font font, Color color) {
+        this.color = color;
+        setFont(font);
+    }
+
+    public void setFont(Font font) {
+        if (font.equals(this.font)) return;
+        this.font = font;
+        double max = 0;
+        for (int d = 0; d < 10; d++) {
+            advance[d] = HudLabel.measure(String.valueOf(d), font);
+            max = Math.max(max, advance[d]);
+        }
+        pad = Math.ceil(font.getSize() * 0.25); // Room for glyphs that overhang their advance
+        cell = Math.ceil(max + 2 * pad);
+        image = null;
+    }
+
+    public double advance(int digit) {
+        return advance[digit];
+    }
+
+    // Draws one digit with its baseline origin at (x, y)
+    public void draw(GraphicsContext gc, int digit, double x, double y) {
+        double scale = TextImage.outputScale(gc);
+        if (image == null || scale != builtScale) build(scale);
+        gc.drawImage(image, digit * cell * scale, 0, cell * scale, cellH * scale,
+                x - pad, y + top, cell, cellH);
+        RenderStats.count(1, cell * cellH);
+    }
+
+    private void build(double scale) {
+        Group strip = new Group();
+        for (int d = 0; d < 10; d++) {
+            Text t = new Text(d * cell + pad, 0, String.valueOf(d));
+            t.setFont(font);
+            t.setFill(color);
+            strip.getChildren().add(t);
+        }
+        // Transparent backing so the image starts at x = 0 and cells line up with d * cell
+        Bounds b = strip.getBoundsInParent();
+        Rectangle backing = new Rectangle(0, Math.floor(b.getMinY()), 10 * cell, Math.ceil(b.getHeight()) + 1);
+        backing.setFill(Color.TRANSPARENT);
+        strip.getChildren().add(0, backing);
+
+        image = TextImage.snapshot(strip, scale);
+        builtScale = scale;
+        top = backing.getY();
+        cellH = image.getHeight() / scale;
+    }
+}
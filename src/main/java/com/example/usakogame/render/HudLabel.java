@@ -0,0 +1,73 @@
+package com.example.usakogame.render;
+
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Font;
+import javafx.scene.text.Text;
+
+// A canvas text line of the form prefix + number + suffix (e.g. "Score: 42", "300 POINTS!").
+// The fixed parts are TextImages and the number comes from a DigitFont, so a frame costs
+// a few drawImage calls and no String or Text node.
+public class HudLabel {
+    private final TextImage prefix;
+    private final TextImage suffix;
+    private final DigitFont digits;
+    private final int[] digitBuf = new int[10]; // Enough for any int
+
+    public HudLabel(Font font, Color color, String prefix, String suffix) {
+        this.prefix = new TextImage(prefix, font, color);
+        this.suffix = new TextImage(suffix, font, color);
+        this.digits = new DigitFont(font, color);
+    }
+
+    // One-off layout pass; call at setup time, never per frame
+    public static double measure(String text, Font font) {
+        if (text.isEmpty()) return 0;
+        Text t = new Text(text);
+        t.setFont(font);
+        return t.getLayoutBounds().getWidth();
+    }
+
+    public void setFont(Font font) {
+        prefix.setFont(font);
+        suffix.setFont(font);
+        digits.setFont(font);
+    }
+
+    public double width(int value) {
+        int n = splitDigits(value);
+        double w = prefix.getWidth() + suffix.getWidth();
+        for (int i = 0; i < n; i++) w += digits.advance(digitBuf[i]);
+        return w;
+    }
+
+    // Draws with the baseline starting at (x, y)
+    public void draw(GraphicsContext gc, int value, double x, double y) {
+        prefix.draw(gc, x, y);
+        x += prefix.getWidth();
+        int n = splitDigits(value);
+        for (int i = n - 1; i >= 0; i--) {
+            digits.draw(gc, digitBuf[i], x, y);
+            x += digits.advance(digitBuf[i]);
+        }
+        suffix.draw(gc, x, y);
+    }
+
+    public void drawCentered(GraphicsContext gc, int value, double centerX, double y) {
+        draw(gc, value, centerX - width(value) / 2, y);
+    }
+
+    // Writes the decimal digits of value (least significant first); negatives draw as 0
+    private int splitDigits(int value) {
+        if (value <= 0) {
+            digitBuf[0] = 0;
+            return 1;
+        }
+        int n = 0;
+        while (value > 0) {
+            digitBuf[n++] = value % 10;
+            value /= 10;
+        }
+        return n;
+    }
+}
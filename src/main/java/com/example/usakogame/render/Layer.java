@@ -0,0 +1,38 @@
+package com.example.usakogame.render;
+
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+
+// One canvas of a LayeredCanvas. Its pixels persist between frames; the owner decides
+// when the content changed and calls redraw() to start over.
+public class Layer {
+    private final Canvas canvas;
+    private final GraphicsContext gc;
+    private boolean dirty = true;
+
+    public Layer(double width, double height) {
+        canvas = new Canvas(width, height);
+        gc = canvas.getGraphicsContext2D();
+    }
+
+    public Canvas getCanvas() {
+        return canvas;
+    }
+
+    // Forces a redraw next frame (e.g. after switching games)
+    public void invalidate() {
+        dirty = true;
+    }
+
+    public boolean isDirty() {
+        return dirty;
+    }
+
+    // Clears the layer and returns its context for drawing the new content
+    public GraphicsContext redraw() {
+        gc.clearRect(0, 0, canvas.getWidth(), canvas.getHeight());
+        RenderStats.count(1, canvas.getWidth() * canvas.getHeight());
+        dirty = false;
+        return gc;
+    }
+}
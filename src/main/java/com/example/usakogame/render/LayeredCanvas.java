@@ -0,0 +1,31 @@
+package com.example.usakogame.render;
+
+import javafx.scene.layout.StackPane;
+
+// Stacked canvases for the canvas games: a static background (drawn once per game),
+// the playfield (moving sprites, redrawn while something moves) and the HUD (redrawn
+// only when its text changes). Upper layers are transparent where nothing is drawn.
+public class LayeredCanvas {
+    public final Layer background;
+    public final Layer playfield;
+    public final Layer hud;
+    private final StackPane node;
+
+    public LayeredCanvas(double width, double height) {
+        background = new Layer(width, height);
+        playfield = new Layer(width, height);
+        hud = new Layer(width, height);
+        node = new StackPane(background.getCanvas(), playfield.getCanvas(), hud.getCanvas());
+        node.setMaxSize(width, height);
+    }
+
+    public StackPane getNode() {
+        return node;
+    }
+
+    public void invalidateAll() {
+        background.invalidate();
+        playfield.invalidate();
+        hud.invalidate();
+    }
+}
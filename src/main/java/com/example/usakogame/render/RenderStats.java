@@ -0,0 +1,69 @@
+package com.example.usakogame.render;
+
+import java.util.function.LongSupplier;
+
+// Per-frame counters of canvas draw calls and the (logical) pixels they cover, so the
+// savings of layered rendering can be checked. Everything that draws on a game canvas
+// calls count(); the game loop calls endFrame() once per pulse.
+// Run with -Dusako.renderStats=true to print a per-second average, with the asset memory
+// gauges (see setAssetGauges) alongside.
+public class RenderStats {
+    private static final boolean LOG = Boolean.getBoolean("usako.renderStats");
+    private static final long LOG_INTERVAL_NANOS = 1_000_000_000L;
+
+    private static int calls = 0;
+    private static double pixels = 0;
+    private static int lastCalls = 0;
+    private static double lastPixels = 0;
+
+    private static long windowStart = -1;
+    private static int windowFrames = 0;
+    private static long windowCalls = 0;
+    private static double windowPixels = 0;
+
+    private static LongSupplier assetBytes = () -> 0;
+    private static LongSupplier peakAssetBytes = () -> 0;
+
+    // Where the per-second line reads current and peak asset memory (AssetManager)
+    public static void setAssetGauges(LongSupplier current, LongSupplier peak) {
+        assetBytes = current;
+        peakAssetBytes = peak;
+    }
+
+    public static void count(int drawCalls, double coveredPixels) {
+        calls += drawCalls;
+        pixels += coveredPixels;
+    }
+
+    public static void endFrame(long now) {
+        lastCalls = calls;
+        lastPixels = pixels;
+        calls = 0;
+        pixels = 0;
+        if (!LOG) return;
+
+        if (windowStart < 0) windowStart = now;
+        windowFrames++;
+        windowCalls += lastCalls;
+        windowPixels += lastPixels;
+        if (now - windowStart >= LOG_INTERVAL_NANOS) {
+            System.out.printf("Render: %d frames, avg %.1f draw calls, %.0f px per frame; assets %d KB (peak %d KB)%n",
+                    windowFrames, windowCalls / (double) windowFrames, windowPixels / windowFrames,
+                    assetBytes.getAsLong() / 1024, peakAssetBytes.getAsLong() / 1024);
+            windowStart = now;
+            windowFrames = 0;
+            windowCalls = 0;
+            windowPixels = 0;
+        }
+    }
+
+    // Draw calls issued in the last completed frame
+    public static int getLastCalls() {
+        return lastCalls;
+    }
+
+    // Logical pixels covered by the last completed frame's draw calls
+    public static double getLastPixels() {
+        return lastPixels;
+    }
+}
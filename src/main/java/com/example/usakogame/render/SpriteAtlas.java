@@ -0,0 +1,205 @@
+package com.example.usakogame.render;
+
+import com.example.usakogame.sim.PngInfo;
+import javafx.geometry.Rectangle2D;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.Image;
+import javafx.scene.image.ImageView;
+import javafx.scene.image.PixelReader;
+import javafx.scene.image.WritableImage;
+import javafx.stage.Screen;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+// Packs a game's sprite frames into one image. Each PNG is decoded directly at the largest
+// size it is ever drawn (times the display's HiDPI scale) instead of at full resolution,
+// so the heap holds a few hundred KB instead of tens of MB and drawImage never downsamples
+// a 500x1100 source. Frames are addressed by the int id returned from add().
+public class SpriteAtlas {
+    private static final int PADDING = 1; // Keeps smooth filtering from bleeding between frames
+    private static final int MAX_ROW_WIDTH = 512;
+
+    private final List<String> resources = new ArrayList<>();
+    private final List<double[]> drawSizes = new ArrayList<>();
+
+    private volatile WritableImage image; // Published last, once the atlas is fully packed
+    // Frame rectangle table, in atlas pixels (width 0 = frame failed to load)
+    private double[] frameX, frameY, frameW, frameH;
+    private Rectangle2D[] viewports;
+
+    // Registers a sprite and the largest logical size it is drawn at; returns its frame id
+    public int add(String resource, double maxDrawW, double maxDrawH) {
+        resources.add(resource);
+        drawSizes.add(new double[] { maxDrawW, maxDrawH });
+        return resources.size() - 1;
+    }
+
+    // Registers a sprite scaled to fit inside maxW x maxH, keeping its aspect ratio
+    public int addFit(String resource, double maxW, double maxH) {
+        double[] size = PngInfo.size(resource);
+        if (size == null) return add(resource, maxW, maxH);
+        double scale = Math.min(maxW / size[0], maxH / size[1]);
+        return add(resource, size[0] * scale, size[1] * scale);
+    }
+
+    public int size() {
+        return resources.size();
+    }
+
+    // Decodes every registered sprite at maxDraw * outputScale and packs them (shelf packing)
+    public void build(double outputScale) {
+        buildAsync(outputScale, Runnable::run, null, null, null).join();
+    }
+
+    // Same as build(), but decodes the sprites in parallel on executor. onDecoded (may be null)
+    // runs on the worker thread after each sprite; packing happens once all are decoded.
+    // With a cache, a previous launch's packed pixels are mapped instead when the key matches.
+    public CompletableFuture<SpriteAtlas> buildAsync(double outputScale, Executor executor, Runnable onDecoded,
+                                                     SpriteCache cache, String name) {
+        int n = resources.size();
+        if (cache != null) {
+            return CompletableFuture.supplyAsync(() -> cache.key(name, resources, drawSizes, outputScale), executor)
+                    .thenCompose(key -> {
+                        if (key != null && cache.restore(this, key)) {
+                            if (onDecoded != null) for (int i = 0; i < n; i++) onDecoded.run();
+                            return CompletableFuture.completedFuture(this);
+                        }
+                        return buildAsync(outputScale, executor, onDecoded, null, null).thenApplyAsync(a -> {
+                            if (key != null) cache.store(this, key, name);
+                            return a;
+                        }, executor);
+                    });
+        }
+
+        Image[] decoded = new Image[n];
+        frameX = new double[n];
+        frameY = new double[n];
+        frameW = new double[n];
+        frameH = new double[n];
+
+        CompletableFuture<?>[] tasks = new CompletableFuture<?>[n];
+        for (int i = 0; i < n; i++) {
+            int index = i;
+            tasks[i] = CompletableFuture.runAsync(() -> {
+                decoded[index] = decode(index, outputScale);
+                if (onDecoded != null) onDecoded.run();
+            }, executor);
+        }
+        return CompletableFuture.allOf(tasks).thenApply(v -> {
+            pack(decoded, outputScale);
+            return this;
+        });
+    }
+
+    // Installs pixels and frame table restored from a SpriteCache
+    void restore(WritableImage cached, double[] fx, double[] fy, double[] fw, double[] fh) {
+        frameX = fx;
+        frameY = fy;
+        frameW = fw;
+        frameH = fh;
+        Rectangle2D[] rects = new Rectangle2D[fx.length];
+        for (int i = 0; i < fx.length; i++) {
+            if (fw[i] > 0) rects[i] = new Rectangle2D(fx[i], fy[i], fw[i], fh[i]);
+        }
+        viewports = rects;
+        image = cached;
+    }
+
+    double[] frameRect(int frame) {
+        return new double[] { frameX[frame], frameY[frame], frameW[frame], frameH[frame] };
+    }
+
+    private Image decode(int i, double outputScale) {
+        double[] size = drawSizes.get(i);
+        int w = (int) Math.ceil(size[0] * outputScale);
+        int h = (int) Math.ceil(size[1] * outputScale);
+        try (InputStream in = SpriteAtlas.class.getResourceAsStream(resources.get(i))) {
+            if (in == null) throw new IllegalStateException("missing resource");
+            Image img = new Image(in, w, h, false, true);
+            if (img.isError()) throw new IllegalStateException(String.valueOf(img.getException()));
+            frameW[i] = img.getWidth();
+            frameH[i] = img.getHeight();
+            return img;
+        } catch (Exception e) {
+            System.err.println("Atlas Error: " + resources.get(i) + " " + e.getMessage());
+            return null;
+        }
+    }
+
+    private void pack(Image[] decoded, double outputScale) {
+        int n = decoded.length;
+
+        // Place frames left to right in rows ("shelves") as tall as their tallest frame
+        int x = 0, y = 0, rowH = 0, atlasW = 1;
+        for (int i = 0; i < n; i++) {
+            if (decoded[i] == null) continue;
+            int w = (int) frameW[i], h = (int) frameH[i];
+            if (x > 0 && x + w > MAX_ROW_WIDTH * outputScale) {
+                x = 0;
+                y += rowH + PADDING;
+                rowH = 0;
+            }
+            frameX[i] = x;
+            frameY[i] = y;
+            x += w + PADDING;
+            rowH = Math.max(rowH, h);
+            atlasW = Math.max(atlasW, x);
+        }
+        int atlasH = Math.max(1, y + rowH);
+
+        WritableImage packed = new WritableImage(atlasW, atlasH);
+        Rectangle2D[] rects = new Rectangle2D[n];
+        for (int i = 0; i < n; i++) {
+            if (decoded[i] == null) continue;
+            rects[i] = new Rectangle2D(frameX[i], frameY[i], frameW[i], frameH[i]);
+            PixelReader reader = decoded[i].getPixelReader();
+            packed.getPixelWriter().setPixels((int) frameX[i], (int) frameY[i],
+                    (int) frameW[i], (int) frameH[i], reader, 0, 0);
+        }
+        viewports = rects;
+        image = packed;
+    }
+
+    public boolean has(int frame) {
+        return image != null && frame >= 0 && frame < frameW.length && frameW[frame] > 0;
+    }
+
+    public void draw(GraphicsContext gc, int frame, double x, double y, double w, double h) {
+        gc.drawImage(image, frameX[frame], frameY[frame], frameW[frame], frameH[frame], x, y, w, h);
+        RenderStats.count(1, w * h);
+    }
+
+    // Shows one frame in an ImageView (e.g. title screen thumbnails)
+    public void applyTo(ImageView view, int frame) {
+        view.setImage(image);
+        view.setViewport(viewports[frame]);
+    }
+
+    // Drops the pixels; frame ids stay valid and a later build brings them back
+    public void unload() {
+        image = null;
+        viewports = null;
+    }
+
+    public Image getImage() {
+        return image;
+    }
+
+    // Bytes of pixel data held by the atlas
+    public long getByteSize() {
+        return image == null ? 0 : (long) image.getWidth() * (long) image.getHeight() * 4;
+    }
+
+    // Largest HiDPI scale of any attached screen, so sprites stay sharp on every monitor
+    public static double displayScale() {
+        double scale = 1.0;
+        for (Screen screen : Screen.getScreens()) {
+            scale = Math.max(scale, Math.max(screen.getOutputScaleX(), screen.getOutputScaleY()));
+        }
+        return scale;
+    }
+}
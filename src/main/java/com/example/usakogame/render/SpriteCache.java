@@ -0,0 +1,150 @@
+package com.example.usakogame.render;
+
+import javafx.scene.image.PixelBuffer;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.List;
+
+// Disk cache of packed, already-scaled atlas pixels. A hit memory-maps the file and hands
+// it to a WritableImage through a PixelBuffer, so the second launch skips PNG decoding.
+// Files are named by a hash of the sprites' PNG bytes, draw sizes and output scale, so
+// a jar with changed resources (or a different monitor scale) simply misses.
+//
+// File layout (little endian): magic, version, width, height, frame count,
+// frame table (x, y, w, h ints per frame), then width*height BGRA premultiplied pixels.
+public class SpriteCache {
+    private static final int MAGIC = 0x55534B41; // "USKA"
+    private static final int VERSION = 1;
+    private static final int HEADER_INTS = 5;
+
+    private final Path dir;
+
+    public SpriteCache(Path dir) {
+        this.dir = dir;
+    }
+
+    // Cache key for an atlas: SHA-256 over every resource's bytes and the requested sizes
+    public String key(String name, List<String> resources, List<double[]> drawSizes, double outputScale) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            byte[] chunk = new byte[16 * 1024];
+            for (int i = 0; i < resources.size(); i++) {
+                md.update(resources.get(i).getBytes(StandardCharsets.UTF_8));
+                try (InputStream in = SpriteCache.class.getResourceAsStream(resources.get(i))) {
+                    if (in != null) {
+                        int n;
+                        while ((n = in.read(chunk)) > 0) md.update(chunk, 0, n);
+                    }
+                }
+                md.update(ByteBuffer.allocate(16).putDouble(drawSizes.get(i)[0]).putDouble(drawSizes.get(i)[1]).array());
+            }
+            md.update(ByteBuffer.allocate(12).putDouble(outputScale).putInt(VERSION).array());
+            return name + "-" + HexFormat.of().formatHex(md.digest(), 0, 8);
+        } catch (Exception e) {
+            System.err.println("Sprite cache key Error: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private Path file(String key) {
+        return dir.resolve("sprites-" + key + ".bin");
+    }
+
+    // Maps a cached atlas into atlas; returns false on a miss or a damaged file
+    boolean restore(SpriteAtlas atlas, String key) {
+        Path path = file(key);
+        if (!Files.isRegularFile(path)) return false;
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+            // PRIVATE: copy-on-write mapping, so the image can never write back to the file
+            MappedByteBuffer map = ch.map(FileChannel.MapMode.PRIVATE, 0, ch.size());
+            map.order(ByteOrder.LITTLE_ENDIAN);
+            if (map.getInt() != MAGIC || map.getInt() != VERSION) return false;
+            int w = map.getInt(), h = map.getInt(), n = map.getInt();
+            if (n != atlas.size() || w <= 0 || h <= 0) return false;
+            double[] fx = new double[n], fy = new double[n], fw = new double[n], fh = new double[n];
+            for (int i = 0; i < n; i++) {
+                fx[i] = map.getInt();
+                fy[i] = map.getInt();
+                fw[i] = map.getInt();
+                fh[i] = map.getInt();
+            }
+            long pixelBytes = (long) w * h * 4;
+            if (map.remaining() != pixelBytes) return false;
+            ByteBuffer pixels = map.slice(map.position(), (int) pixelBytes);
+            PixelBuffer<ByteBuffer> buffer = new PixelBuffer<>(w, h, pixels, PixelFormat.getByteBgraPreInstance());
+            atlas.restore(new WritableImage(buffer), fx, fy, fw, fh);
+            return true;
+        } catch (Exception e) {
+            System.err.println("Sprite cache read Error: " + e.getMessage());
+            return false;
+        }
+    }
+
+    // Writes a freshly packed atlas (temp file + rename) and drops stale entries of the same atlas.
+    // Not if a frame failed to decode: the key would restore it as missing on every launch.
+    void store(SpriteAtlas atlas, String key, String name) {
+        int n = atlas.size();
+        for (int i = 0; i < n; i++) {
+            if (!atlas.has(i)) return;
+        }
+        WritableImage image = (WritableImage) atlas.getImage();
+        int w = (int) image.getWidth(), h = (int) image.getHeight();
+        ByteBuffer header = ByteBuffer.allocate((HEADER_INTS + 4 * n) * 4).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(MAGIC).putInt(VERSION).putInt(w).putInt(h).putInt(n);
+        for (int i = 0; i < n; i++) {
+            double[] r = atlas.frameRect(i);
+            header.putInt((int) r[0]).putInt((int) r[1]).putInt((int) r[2]).putInt((int) r[3]);
+        }
+        header.flip();
+        ByteBuffer pixels = ByteBuffer.allocate(w * h * 4);
+        image.getPixelReader().getPixels(0, 0, w, h, PixelFormat.getByteBgraPreInstance(), pixels, w * 4);
+        pixels.rewind();
+
+        Path tmp = null;
+        try {
+            Files.createDirectories(dir);
+            tmp = Files.createTempFile(dir, "sprites-", ".tmp");
+            try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+                while (header.hasRemaining()) ch.write(header);
+                while (pixels.hasRemaining()) ch.write(pixels);
+            }
+            Path target = file(key);
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            tmp = null;
+            try (DirectoryStream<Path> old = Files.newDirectoryStream(dir, "sprites-" + name + "-*.bin")) {
+                for (Path p : old) {
+                    try {
+                        if (!p.equals(target)) Files.deleteIfExists(p);
+                    } catch (IOException e) {
+                        // Still mapped by another running instance; removed on a later launch
+                    }
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Sprite cache write Error: " + e.getMessage());
+        } finally {
+            if (tmp != null) {
+                try {
+                    Files.deleteIfExists(tmp);
+                } catch (IOException e) {
+                    // Left for the OS; never read back, as only .bin files are restored
+                }
+            }
+        }
+    }
+}
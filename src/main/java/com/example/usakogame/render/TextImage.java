@@ -0,0 +1,85 @@
+package com.example.usakogame.render;
+
+import javafx.geometry.Bounds;
+import javafx.scene.Node;
+import javafx.scene.SnapshotParameters;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.WritableImage;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Font;
+import javafx.scene.text.Text;
+import javafx.scene.transform.Transform;
+import javafx.stage.Window;
+
+// A fixed string rasterized once into an image, so drawing it is one drawImage call and
+// centring uses a width measured once. The image is rebuilt only when the font or the
+// window's output scale changes. Must be used on the FX thread (rasterizing is a snapshot).
+public class TextImage {
+    private final String text;
+    private final Color color;
+    private Font font;
+
+    private WritableImage image;
+    private double builtScale;
+    private double width;          // Advance width (layout bounds), for centring
+    private double offsetX, offsetY; // Image top-left relative to the baseline origin
+    private double drawW, drawH;
+
+    public TextImage(String text, Font font, Color color) {
+        this.text = text;
+        this.font = font;
+        this.color = color;
+        this.width = HudLabel.measure(text, font);
+    }
+
+    public void setFont(Font font) {
+        if (font.equals(this.font)) return;
+        this.font = font;
+        this.width = HudLabel.measure(text, font);
+        this.image = null;
+    }
+
+    public double getWidth() {
+        return width;
+    }
+
+    // Draws with the baseline starting at (x, y)
+    public void draw(GraphicsContext gc, double x, double y) {
+        if (text.isEmpty()) return;
+        double scale = outputScale(gc);
+        if (image == null || scale != builtScale) build(scale);
+        gc.drawImage(image, x + offsetX, y + offsetY, drawW, drawH);
+        RenderStats.count(1, drawW * drawH);
+    }
+
+    public void drawCentered(GraphicsContext gc, double centerX, double y) {
+        draw(gc, centerX - width / 2, y);
+    }
+
+    private void build(double scale) {
+        Text node = new Text(text);
+        node.setFont(font);
+        node.setFill(color);
+        Bounds b = node.getBoundsInParent();
+        image = snapshot(node, scale);
+        builtScale = scale;
+        offsetX = b.getMinX();
+        offsetY = b.getMinY();
+        drawW = image.getWidth() / scale;
+        drawH = image.getHeight() / scale;
+    }
+
+    static WritableImage snapshot(Node node, double scale) {
+        SnapshotParameters params = new SnapshotParameters();
+        params.setFill(Color.TRANSPARENT);
+        params.setTransform(Transform.scale(scale, scale));
+        return node.snapshot(params, null);
+    }
+
+    // HiDPI scale of the window the canvas is shown in (1 before it is attached)
+    static double outputScale(GraphicsContext gc) {
+        if (gc.getCanvas().getScene() == null) return 1.0;
+        Window window = gc.getCanvas().getScene().getWindow();
+        return window == null ? 1.0 : window.getOutputScaleX();
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.usakogame.runner;
+
+import com.example.usakogame.sim.EntityStore;
+import com.example.usakogame.sim.Input;
+import com.example.usakogame.sim.Playfield;
+import com.example.usakogame.sim.Policy;
+
+// Plays the Runner with a trained Policy (see AutopilotTrainer in the benchmarks): reads the
+// player and the next two obstacles as features and presses jump / crouch. decide() does
+// not allocate.
+public class RunnerAutopilot {
+    public static final int FEATURES = 12;
+    public static final int OUTPUTS = 2; // Jump, crouch
+
+    private final Policy policy;
+    private final double[] features = new double[FEATURES];
+    private final double[] out = new double[OUTPUTS];
+
+    public RunnerAutopilot(Policy policy) {
+        if (policy.inputs != FEATURES || policy.outputs != OUTPUTS) throw new IllegalArgumentException("Not a Runner policy");
+        this.policy = policy;
+    }
+
+    // Input mask for the next tick; starts a waiting game
+    public int decide(RunnerWorld w) {
+        features(w, features);
+        policy.evaluate(features, out);
+        int input = w.isRunning() ? Input.NONE : Input.START;
+        // One action at a time: the stronger of jump and crouch, if it is above 0
+        if (out[0] > 0 && out[0] >= out[1]) input |= Input.JUMP;
+        else if (out[1] > 0) input |= Input.CROUCH | Input.DUCK;
+        return input;
+    }
+
+    // Roughly unit-scaled: heights above the ground / 200, distances / screen width, and
+    // whether the room under an obstacle fits the standing / crouching hitbox
+    static void features(RunnerWorld w, double[] f) {
+        f[0] = (RunnerWorld.GROUND_Y - w.getPlayerY()) / 200;
+        f[1] = w.getVelocityY() / 15;
+        f[2] = w.getObsSpeed() / 20;
+        f[3] = w.isCrouching() ? 1 : 0;
+        RunnerMetrics m = w.getMetrics();
+        int n = 0;
+        EntityStore obstacles = w.getObstacles();
+        for (int i = 0; i < obstacles.size() && n < 2; i++) {
+            int s = obstacles.slot(i);
+            if (obstacles.x[s] + obstacles.w[s] < RunnerWorld.PLAYER_X) continue; // Already passed
+            int k = 4 + n * 4;
+            double clearance = RunnerWorld.GROUND_Y - obstacles.y[s] - obstacles.h[s]; // Room under it
+            f[k] = (obstacles.x[s] - RunnerWorld.PLAYER_X) / Playfield.WIDTH;
+            f[k + 1] = (RunnerWorld.GROUND_Y - obstacles.y[s]) / 200;
+            f[k + 2] = (clearance - m.standH) / 100; // Below 0: hits a standing player
+            f[k + 3] = (clearance - m.squatHitboxH) / 100; // Below 0: hits a crouching player
+            n++;
+        }
+        for (; n < 2; n++) {
+            // No obstacle: far away and flat
+            int k = 4 + n * 4;
+            f[k] = 1.5;
+            f[k + 1] = 0;
+            f[k + 2] = 1;
+            f[k + 3] = 1;
+        }
+    }
+}
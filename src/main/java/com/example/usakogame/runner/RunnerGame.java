@@ -3,114 +3,148 @@ package com.example.usakogame.runner;
 import com.example.usakogame.UsakoGameApp;
 import com.example.usakogame.manager.HighScoreManager;
 import com.example.usakogame.manager.SoundManager;
+import com.example.usakogame.render.HudLabel;
+import com.example.usakogame.render.LayeredCanvas;
+import com.example.usakogame.render.RenderStats;
+import com.example.usakogame.render.SpriteAtlas;
+import com.example.usakogame.render.TextImage;
+import com.example.usakogame.sim.EntityStore;
+import com.example.usakogame.sim.Input;
+import com.example.usakogame.sim.Replay;
+import com.example.usakogame.sim.ReplayRecorder;
+import com.example.usakogame.sim.SimEvent;
 import javafx.scene.canvas.GraphicsContext;
-import javafx.scene.image.Image;
 import javafx.scene.input.KeyCode;
 import javafx.scene.paint.Color;
 import javafx.scene.text.Font;
 import javafx.scene.text.FontWeight;
-import javafx.scene.text.Text;
-
-import java.util.ArrayList;
-import java.util.Iterator;
-import java.util.List;
-import java.util.Random;
 
 public class RunnerGame {
-    public Image[] runAnim = new Image[6];
-    public Image[] squatAnim = new Image[5];
-    public Image[] jumpAnim = new Image[6];
+    private static final String RES_DIR = RunnerMetrics.RES_DIR;
+
+    // Frame ids into atlas (see SpriteAtlas); loaded and unloaded by AssetManager
+    public SpriteAtlas atlas;
+    public final int[] runAnim = new int[RunnerMetrics.RUN_FRAMES];
+    public final int[] squatAnim = new int[RunnerMetrics.SQUAT_FRAMES];
+    public final int[] jumpAnim = new int[RunnerMetrics.JUMP_FRAMES];
     
     private final UsakoGameApp app;
+    private final RunnerWorld world;
     
-    private double playerX = 80; // Fixed X position
-    private double playerY;      // Current Y position (represented as Feet Y)
-    private double velocityY = 0;
-    private double gravity = 0.8;
-    private double jumpForce = -15;
-    private double groundY = 500; // Floor Level Y
-    
-    // Dynamic sizes (Display)
-    private double standDisplayW = 60, standDisplayH = 90;
-    private double squatDisplayW = 50, squatDisplayH = 90; 
-    
-    // Scale helper
-    private double globalScale = 1.0;
-    private double jumpScaleFactor = 1.2; // Adjustable jump size multiplier
-    private double squatHitboxH = 55;
-
-    public boolean isRunning = false;
-    private boolean isGameOver = false;
-    private boolean isCrouching = false;
-    
-    private int score = 0;
     private int highScore = 0;
-    private int tick = 0;
-    private double animTick = 0;
-    
-    private List<RunnerObstacle> obstacles = new ArrayList<>();
-    private Random random = new Random();
-    private double obsSpeed = 6;
-    private int spawnTimer = 0;
+    private int pendingInput = Input.NONE;
+    private boolean crouchHeld = false;
     
-    private String milestoneMsg = "";
-    private int milestoneTimer = 0;
+    private int milestoneScore = 0;
+
+    // Every run is recorded from its reset; a replay feeds its masks through the same step
+    private final ReplayRecorder recorder = new ReplayRecorder();
+    private Replay replay = null;
+    private Replay.Cursor replayCursor;
+    private int replaySpeed = 1; // Ticks per update while replaying (fast-forward)
+    private RunnerAutopilot demo = null; // Attract mode: the autopilot plays, nothing is recorded
+
+    // What the playfield/HUD layers currently show, to skip redrawing unchanged layers
+    private boolean playfieldDirty = true;
+    private int drawnScore = -1;
+    private int drawnHighScore = -1;
+    private boolean drawnStart = false;
+    private boolean drawnMilestone = false;
+    private int drawnSpeed = -1;
+
+    // HUD, banner and instructions are pre-rasterized (see TextImage / DigitFont)
+    private static final Font FONT_START = Font.font("Verdana", FontWeight.BOLD, 40);
+    private static final Font FONT_INST = Font.font("Verdana", FontWeight.BOLD, 20);
+
+    private final HudLabel scoreLabel = new HudLabel(Font.font("Verdana", FontWeight.BOLD, 20), Color.BLACK, "Score: ", "");
+    private final HudLabel highScoreLabel = new HudLabel(Font.font("Verdana", FontWeight.BOLD, 18), Color.BLACK, "High Score: ", "");
+    private final HudLabel milestoneLabel = new HudLabel(FONT_START, Color.ORANGE, "", " POINTS!");
+    private final TextImage startText = new TextImage("上矢印でスタート", FONT_START, Color.BLACK);
+    private final TextImage instText = new TextImage("上矢印: ジャンプ / 下矢印: しゃがむ", FONT_INST, Color.BLACK);
+    private final TextImage escText = new TextImage("ESCでタイトルへ", FONT_INST, Color.BLACK);
+    private final HudLabel replayLabel = new HudLabel(Font.font("Verdana", FontWeight.BOLD, 20), Color.RED, "REPLAY x", "");
+    private final TextImage replayHint = new TextImage("←/→: 速度  ESC: タイトルへ", FONT_INST, Color.GRAY);
+    private final TextImage demoText = new TextImage("DEMO PLAY", FONT_START, Color.ORANGE);
+    private final TextImage demoHint = new TextImage("何かキーを押してください", FONT_INST, Color.BLACK);
 
     public RunnerGame(UsakoGameApp app) {
         this.app = app;
-        loadAssets();
+        this.world = new RunnerWorld(RunnerMetrics.load(), System.nanoTime());
+        registerAssets();
     }
 
-    private void loadAssets() {
-        try {
-            for (int i=0; i<6; i++) {
-                runAnim[i] = new Image(getClass().getResourceAsStream("/com/example/usakogame/run" + (i+1) + ".png"));
-                if (i < 5) {
-                    squatAnim[i] = new Image(getClass().getResourceAsStream("/com/example/usakogame/squat" + (i+1) + ".png"));
-                }
-                jumpAnim[i] = new Image(getClass().getResourceAsStream("/com/example/usakogame/jump" + (i+1) + ".png"));
-            }
-            
-            double scale = 1.0;
-            if (runAnim[0] != null) {
-                standDisplayH = 90;
-                scale = standDisplayH / runAnim[0].getHeight();
-                standDisplayW = runAnim[0].getWidth() * scale;
-            }
-            this.globalScale = scale; 
-            if (squatAnim[0] != null) {
-                double squatScale = scale * 1.2;
-                squatDisplayH = squatAnim[0].getHeight() * squatScale;
-                squatDisplayW = squatAnim[0].getWidth() * squatScale;
-                squatHitboxH = Math.min(squatDisplayH, 60);
-            }
-        } catch(Exception e) {
-            System.err.println("Runner Assets Error: " + e.getMessage());
+    private void registerAssets() {
+        // Decode every frame at the largest size it is drawn at, into one atlas
+        RunnerMetrics m = world.getMetrics();
+        atlas = new SpriteAtlas();
+        // Run frames are also drawn in the squat box when crouching at game over
+        double runW = Math.max(m.standW, m.squatW);
+        double runH = Math.max(m.standH, m.squatH);
+        for (int i=0; i<RunnerMetrics.RUN_FRAMES; i++) {
+            runAnim[i] = atlas.add(RES_DIR + "run" + (i+1) + ".png", runW, runH);
+        }
+        for (int i=0; i<RunnerMetrics.SQUAT_FRAMES; i++) {
+            squatAnim[i] = atlas.add(RES_DIR + "squat" + (i+1) + ".png", m.squatW, m.squatH);
+        }
+        for (int i=0; i<RunnerMetrics.JUMP_FRAMES; i++) {
+            jumpAnim[i] = atlas.add(RES_DIR + "jump" + (i+1) + ".png", m.jumpW[i], m.jumpH[i]);
         }
     }
 
     public void resetGame() {
-        obstacles.clear();
-        playerY = groundY;
-        velocityY = 0;
-        score = 0;
+        long seed = System.nanoTime();
+        world.reset(seed);
+        recorder.start(Replay.MODE_RUNNER, seed);
+        replay = null;
+        demo = null;
+        replaySpeed = 1;
+        playfieldDirty = true;
+        highScore = HighScoreManager.getHighScore("runner");
+        pendingInput = Input.NONE;
+        milestoneScore = 0;
+    }
 
+    // Plays a recorded run back from its seed; the keyboard only controls the playback
+    public void startReplay(Replay r) {
+        world.reset(r.seed);
+        recorder.cancel();
+        replay = r;
+        demo = null;
+        replayCursor = r.cursor();
+        replaySpeed = 1;
+        playfieldDirty = true;
         highScore = HighScoreManager.getHighScore("runner");
-        tick = 0;
-        animTick = 0;
-        obsSpeed = 6;
-        isRunning = false;
-        isGameOver = false;
-        isCrouching = false;
-        milestoneMsg = "";
-        milestoneTimer = 0;
+        pendingInput = Input.NONE;
+        crouchHeld = false;
+        milestoneScore = 0;
+    }
+
+    // Attract mode: a fresh game played by the autopilot, silent and unrecorded (the app
+    // leaves it on any key)
+    public void startDemo(RunnerAutopilot pilot) {
+        world.reset(System.nanoTime());
+        recorder.cancel();
+        replay = null;
+        demo = pilot;
+        replaySpeed = 1;
+        playfieldDirty = true;
+        highScore = HighScoreManager.getHighScore("runner");
+        pendingInput = Input.NONE;
+        crouchHeld = false;
+        milestoneScore = 0;
     }
 
     public void handleKeyPress(KeyCode code) {
-        if (isGameOver) {
+        if (replay != null) {
+            if (code == KeyCode.ESCAPE) app.showTitleScreen();
+            if (code == KeyCode.RIGHT) replaySpeed = Math.min(replaySpeed * 4, Replay.MAX_SPEED);
+            if (code == KeyCode.LEFT) replaySpeed = Math.max(replaySpeed / 4, 1);
+            return;
+        }
+        if (world.isGameOver()) {
             if (code == KeyCode.UP) {
                 resetGame();
-                isRunning = true;
+                pendingInput |= Input.START;
                 return;
             }
             if (code == KeyCode.ESCAPE) {
@@ -120,247 +154,188 @@ public class RunnerGame {
             // Do not allow other keys to fall through and change state
             return;
         }
-        if (!isRunning) {
-             if (code == KeyCode.UP) isRunning = true;
-             if (code == KeyCode.ESCAPE) {
-                 app.showTitleScreen();
-                 return;
-             }
+        if (!world.isRunning() && code == KeyCode.ESCAPE) {
+            app.showTitleScreen();
+            return;
         }
         
-        if (isRunning) {
-            if (code == KeyCode.UP && Math.abs(playerY - groundY) < 1) { 
-                velocityY = jumpForce;
-                SoundManager.playJump();
-            }
-            if (code == KeyCode.DOWN) {
-                isCrouching = true;
-                if (playerY < groundY) velocityY += 5;
-            }
+        // Applied at the start of the next simulation tick
+        if (code == KeyCode.UP) pendingInput |= Input.JUMP;
+        if (code == KeyCode.DOWN) {
+            crouchHeld = true;
+            pendingInput |= Input.DUCK;
         }
     }
     
     public void handleKeyRelease(KeyCode code) {
         if (code == KeyCode.DOWN) {
-            isCrouching = false;
+            crouchHeld = false;
         }
     }
 
     public void handleInput() {
-        if (isGameOver) { resetGame(); isRunning = true; return;}
-        if (!isRunning) isRunning = true;
-        if (Math.abs(playerY - groundY) < 1) velocityY = jumpForce;
+        if (replay != null) return;
+        if (world.isGameOver()) { resetGame(); pendingInput |= Input.START; return;}
+        pendingInput |= Input.JUMP;
     }
 
     public void update() {
-        if (!isRunning || isGameOver) return;
-        
-        tick++;
-        
-        // Animation speed based on running speed
-        animTick += (obsSpeed / 6.0);
-        
-        velocityY += gravity;
-        playerY += velocityY;
-        
-        if (playerY > groundY) {
-            playerY = groundY;
-            velocityY = 0;
+        if (demo != null) {
+            step(demo.decide(world));
+        } else if (replay == null) {
+            int input = pendingInput | (crouchHeld ? Input.CROUCH : Input.NONE);
+            pendingInput = Input.NONE;
+            recorder.record(input);
+            step(input);
+        } else {
+            // Fast-forward just runs more ticks per frame; sounds are skipped past real speed
+            for (int i = 0; i < replaySpeed && !world.isGameOver(); i++) step(replayCursor.next());
         }
-        
-        spawnTimer++;
-        if (spawnTimer > (1200 / obsSpeed) + random.nextInt(30)) { 
-             spawnObstacle();
-             spawnTimer = 0;
+        // Music speeds up with the obstacles (120 BPM at the start speed)
+        SoundManager.setMusic(world.isRunning() && !world.isGameOver() && replaySpeed == 1 && demo == null, 120 * world.getObsSpeed() / RunnerWorld.START_SPEED);
+    }
+
+    private void step(int input) {
+        int events = world.step(input);
+        boolean sound = demo == null && (replay == null || replaySpeed == 1);
+
+        if ((events & SimEvent.JUMP) != 0 && sound) SoundManager.playJump();
+        if ((events & SimEvent.SCORE) != 0) {
+            if (sound) SoundManager.playScore(world.getScore() / 100 - 1);
+            milestoneScore = world.getScore();
         }
-        
-        Iterator<RunnerObstacle> iter = obstacles.iterator();
-        while(iter.hasNext()) {
-            RunnerObstacle obs = iter.next();
-            obs.x -= obsSpeed;
-            if (obs.x < -100) iter.remove();
-            if (checkCollision(obs)) {
-                isGameOver = true;
-                SoundManager.playGameOver();
-                app.showGameOverOverlay("runner", score);
+        if ((events & SimEvent.GAME_OVER) != 0) {
+            playfieldDirty = true; // Draw the crash pose once
+            if (sound) SoundManager.playGameOver();
+            if (demo != null) {
+                // The app starts the next demo game after a pause
+            } else if (replay != null) {
+                app.showReplayEndOverlay(replay, world.getScore(), world.checksum());
+            } else {
+                Replay run = recorder.finish(world.getScore(), world.checksum());
+                app.showGameOverOverlay("runner", world.getScore(), world.getTick() * 1000L / UsakoGameApp.TICKS_PER_SECOND, run);
             }
         }
-        
-
-        if (tick % 10 == 0) {
-             score++;
-             if (score % 100 == 0) {
-                 SoundManager.playScore();
-                 milestoneMsg = score + " POINTS!";
-                 milestoneTimer = 60; // Display for ~1 second (60 frames)
-             }
-        }
-        if (milestoneTimer > 0) milestoneTimer--;
-        
-        if (tick % 300 == 0) obsSpeed += 0.5;
     }
 
-    private void spawnObstacle() {
-        boolean isSky = random.nextDouble() > 0.6; 
-        
-        double ox = UsakoGameApp.WINDOW_WIDTH;
-        double oy;
-        double ow = 50; 
-        double oh = 60; 
-        
-        if (isSky) {
-            double offset = 50 + random.nextInt(100);
-            oy = groundY - offset; 
-            oh = 45;
-            ow = 45;  
-        } else {
-            oy = groundY - 60;
-            oh = 60;
-            ow = 50;
+    public RunnerWorld getWorld() { return world; }
+
+    // Each layer is redrawn only when its content changed (see LayeredCanvas)
+    public void render(LayeredCanvas layers, double alpha) {
+        if (layers.background.isDirty()) renderBackground(layers.background.redraw());
+
+        // Before the start and after a crash nothing moves, so the playfield is drawn once
+        boolean moving = world.isRunning() && !world.isGameOver();
+        if (!moving) alpha = 1;
+        if (moving || playfieldDirty || layers.playfield.isDirty()) {
+            renderPlayfield(layers.playfield.redraw(), alpha);
+            playfieldDirty = false;
         }
-        obstacles.add(new RunnerObstacle(ox, oy, ow, oh, isSky));
-    }
 
-    private boolean checkCollision(RunnerObstacle obs) {
-        boolean inAir = Math.abs(playerY - groundY) > 5;
-        double h, w;
-        if (inAir) {
-            // Dynamic Jump Size
-            Image img = getCurrentSprite();
-            if (img != null) {
-                 h = img.getHeight() * globalScale * jumpScaleFactor;
-                 w = img.getWidth() * globalScale * jumpScaleFactor;
-            } else {
-                 h = standDisplayH; w = standDisplayW;
-            }
-        } else if (isCrouching) {
-            h = squatHitboxH; w = squatDisplayW;
-        } else {
-            h = standDisplayH; w = standDisplayW;
+        boolean showStart = !world.isRunning() && !world.isGameOver() && replay == null && demo == null;
+        int speed = replay == null ? 0 : replaySpeed;
+        boolean showMilestone = moving && world.getMilestoneTimer() > 0;
+        if (layers.hud.isDirty() || world.getScore() != drawnScore || highScore != drawnHighScore
+                || showStart != drawnStart || showMilestone != drawnMilestone || speed != drawnSpeed) {
+            drawnScore = world.getScore();
+            drawnHighScore = highScore;
+            drawnStart = showStart;
+            drawnMilestone = showMilestone;
+            drawnSpeed = speed;
+            renderHud(layers.hud.redraw(), showStart, showMilestone, speed);
         }
-        double px = playerX;
-        double py = playerY - h; // Top-left
-        
-        // Allow slight leeway (hitbox reduction)
-        double buf = 5;
-        return px + buf < obs.x + obs.w && px + w - buf > obs.x &&
-               py + buf < obs.y + obs.h && py + h - buf > obs.y;
+        // Overlay handled by App
     }
 
-    public void render(GraphicsContext gc) {
+    private void renderBackground(GraphicsContext gc) {
         gc.setFill(Color.WHITE);
         gc.fillRect(0,0, UsakoGameApp.WINDOW_WIDTH, UsakoGameApp.WINDOW_HEIGHT);
         
         // Draw Ground
         gc.setStroke(Color.BLACK);
         gc.setLineWidth(2);
-        gc.strokeLine(0, groundY, UsakoGameApp.WINDOW_WIDTH, groundY);
-        
+        gc.strokeLine(0, RunnerWorld.GROUND_Y, UsakoGameApp.WINDOW_WIDTH, RunnerWorld.GROUND_Y);
+        RenderStats.count(2, UsakoGameApp.WINDOW_WIDTH * (UsakoGameApp.WINDOW_HEIGHT + 2));
+    }
+
+    private void renderPlayfield(GraphicsContext gc, double alpha) {
+        gc.setStroke(Color.BLACK);
+        gc.setLineWidth(2);
+
         // Obstacles
-        for (RunnerObstacle obs : obstacles) {
-            if (obs.isSky) {
-                gc.setFill(Color.WHITE); 
-                gc.fillOval(obs.x, obs.y, obs.w, obs.h);
-                gc.strokeOval(obs.x, obs.y, obs.w, obs.h);
-            } else {
-                gc.setFill(Color.WHITE);
-                gc.fillRect(obs.x, obs.y, obs.w, obs.h);
-                gc.strokeRect(obs.x, obs.y, obs.w, obs.h);
+        EntityStore obstacles = world.getObstacles();
+        for (int run = 0; run < 2; run++) {
+            for (int s = obstacles.runStart(run), end = obstacles.runEnd(run); s < end; s++) {
+                double ox = obstacles.prevX[s] + (obstacles.x[s] - obstacles.prevX[s]) * alpha;
+                double oy = obstacles.y[s], ow = obstacles.w[s], oh = obstacles.h[s];
+                if (obstacles.type[s] == RunnerWorld.OBSTACLE_SKY) {
+                    gc.setFill(Color.WHITE); 
+                    gc.fillOval(ox, oy, ow, oh);
+                    gc.strokeOval(ox, oy, ow, oh);
+                } else {
+                    gc.setFill(Color.WHITE);
+                    gc.fillRect(ox, oy, ow, oh);
+                    gc.strokeRect(ox, oy, ow, oh);
+                }
+                RenderStats.count(2, ow * oh);
             }
         }
         
         // Player
-        Image img = getCurrentSprite();
-        boolean inAir = Math.abs(playerY - groundY) > 5;
-        double h, w;
-        if (inAir && img != null) {
-             // Use image natural ratio scaled * jump modifier
-             h = img.getHeight() * globalScale * jumpScaleFactor;
-             w = img.getWidth() * globalScale * jumpScaleFactor;
-        } else if (isCrouching && !inAir) {
-             h = squatDisplayH; w = squatDisplayW;
-        } else {
-             h = standDisplayH; w = standDisplayW;
-        }
-        double py = playerY - h;
+        int sprite = getCurrentSprite();
+        double h = world.getSpriteHeight();
+        double w = world.getSpriteWidth();
+        double playerX = RunnerWorld.PLAYER_X;
+        double py = (world.getPrevPlayerY() + (world.getPlayerY() - world.getPrevPlayerY()) * alpha) - h;
         
-        if (img != null) {
+        if (sprite >= 0) {
             // Preserve aspect ratio of image?
             // Just draw it in the box
-            gc.drawImage(img, playerX, py, w, h);
+            atlas.draw(gc, sprite, playerX, py, w, h);
         } else {
             gc.setFill(Color.BLUE);
             gc.fillRect(playerX, py, w, h);
+            RenderStats.count(1, w * h);
         }
+    }
+
+    private void renderHud(GraphicsContext gc, boolean showStart, boolean showMilestone, int replaySpeed) {
+        scoreLabel.draw(gc, world.getScore(), UsakoGameApp.WINDOW_WIDTH - 220, 50);
+        highScoreLabel.draw(gc, highScore, UsakoGameApp.WINDOW_WIDTH - 220, 80);
         
-        // UI
-        gc.setFill(Color.BLACK);
-        gc.setFont(Font.font("Verdana", FontWeight.BOLD, 20));
-        gc.setFont(Font.font("Verdana", FontWeight.BOLD, 20));
-        gc.fillText("Score: " + score, UsakoGameApp.WINDOW_WIDTH - 220, 50);
-        gc.setFont(Font.font("Verdana", FontWeight.BOLD, 18));
-        gc.fillText("High Score: " + highScore, UsakoGameApp.WINDOW_WIDTH - 220, 80);
-        
-        if (!isRunning && !isGameOver) {
-             Font fStart = Font.font("Verdana", FontWeight.BOLD, 40);
-             gc.setFont(fStart);
-             String tStart = "上矢印でスタート";
-             Text txtStart = new Text(tStart); txtStart.setFont(fStart);
-             double wStart = txtStart.getLayoutBounds().getWidth();
-             gc.fillText(tStart, (UsakoGameApp.WINDOW_WIDTH - wStart) / 2, 200);
-             
-             gc.setFill(Color.BLACK);
-             Font fInst = Font.font("Verdana", FontWeight.BOLD, 20);
-             gc.setFont(fInst);
-             String tInst = "上矢印: ジャンプ / 下矢印: しゃがむ";
-             Text txtInst = new Text(tInst); txtInst.setFont(fInst);
-             double wInst = txtInst.getLayoutBounds().getWidth();
-             gc.fillText(tInst, (UsakoGameApp.WINDOW_WIDTH - wInst) / 2, 250);
-             
-             String tEsc = "ESCでタイトルへ";
-             Text txtEsc = new Text(tEsc); txtEsc.setFont(fInst);
-             double wEsc = txtEsc.getLayoutBounds().getWidth();
-             gc.fillText(tEsc, (UsakoGameApp.WINDOW_WIDTH - wEsc) / 2, 290);
+        if (showStart) {
+             startText.drawCentered(gc, UsakoGameApp.WINDOW_WIDTH / 2.0, 200);
+             instText.drawCentered(gc, UsakoGameApp.WINDOW_WIDTH / 2.0, 250);
+             escText.drawCentered(gc, UsakoGameApp.WINDOW_WIDTH / 2.0, 290);
         }
         
         // Milestone Text
-        if (isRunning && !isGameOver && milestoneTimer > 0) {
-            gc.setFill(Color.ORANGE);
-            Font fMile = Font.font("Verdana", FontWeight.BOLD, 40);
-            gc.setFont(fMile);
-            
-            Text tMile = new Text(milestoneMsg); tMile.setFont(fMile);
-            double wMile = tMile.getLayoutBounds().getWidth();
-            double x = (UsakoGameApp.WINDOW_WIDTH - wMile) / 2;
-            double y = 150;
-            
-            gc.fillText(milestoneMsg, x, y);
+        if (showMilestone) {
+            milestoneLabel.drawCentered(gc, milestoneScore, UsakoGameApp.WINDOW_WIDTH / 2.0, 150);
+        }
+
+        if (replaySpeed > 0) {
+            replayLabel.draw(gc, replaySpeed, 20, 50);
+            replayHint.draw(gc, 20, 80);
+        }
+        if (demo != null) {
+            demoText.drawCentered(gc, UsakoGameApp.WINDOW_WIDTH / 2.0, 200);
+            demoHint.drawCentered(gc, UsakoGameApp.WINDOW_WIDTH / 2.0, 240);
         }
-        
-        // Overlay handled by App
     }
     
-    private Image getCurrentSprite() {
-        // Jump
-        if (Math.abs(playerY - groundY) > 5) { // In air
-            double maxVy = -jumpForce; 
-            double v = velocityY;
-            double progress = (v - jumpForce) / (maxVy - jumpForce);
-            int frame = (int)(progress * 6);
-            if (frame < 0) frame = 0;
-            if (frame > 5) frame = 5;
-            
-            if (jumpAnim[frame] != null) return jumpAnim[frame];
-        }
-        // Squat
-        if (isCrouching && !isGameOver) {
-            int frame = ((int)animTick / 5) % 5;
-            if (squatAnim[frame] != null) return squatAnim[frame];
+    // Atlas frame id of the current player sprite, or -1 if none loaded
+    private int getCurrentSprite() {
+        int frame = world.getSpriteFrame();
+        switch (world.getSpriteKind()) {
+            case RunnerWorld.SPRITE_JUMP: if (atlas.has(jumpAnim[frame])) return jumpAnim[frame]; break;
+            case RunnerWorld.SPRITE_SQUAT: if (atlas.has(squatAnim[frame])) return squatAnim[frame]; break;
+            default: break;
         }
         // Run (6 frames)
-        int frame = ((int)animTick / 5) % 6;
-        if (runAnim[frame] != null) return runAnim[frame];
+        frame = ((int)world.getAnimTick() / 5) % 6;
+        if (atlas.has(runAnim[frame])) return runAnim[frame];
         
-        return null;
+        return -1;
     }
 }
@@ -0,0 +1,191 @@
+package com.example.usakogame.runner;
+
+import com.example.usakogame.sim.CollisionMask;
+import com.example.usakogame.sim.PngInfo;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+// Display sizes of the Runner sprites, derived from the shipped PNGs. Shared by the
+// simulation (hitboxes) and the renderer (draw sizes) so both always agree.
+public class RunnerMetrics {
+    public static final String RES_DIR = "/com/example/usakogame/";
+    public static final int RUN_FRAMES = 6;
+    public static final int SQUAT_FRAMES = 5;
+    public static final int JUMP_FRAMES = 6;
+    static final int MASK_COUNT = RUN_FRAMES + SQUAT_FRAMES + JUMP_FRAMES;
+    // Collision masks of every frame, precomputed by MaskBaker (benchmarks module)
+    static final String MASKS = RES_DIR + "runner.masks";
+
+    public double standW = 60, standH = 90;
+    public double squatW = 50, squatH = 90;
+    public double squatHitboxH = 55;
+    public double globalScale = 1.0;
+    public double jumpScaleFactor = 1.2; // Adjustable jump size multiplier
+    // Display size of each jump frame (native size * globalScale * jumpScaleFactor)
+    public final double[] jumpW = new double[JUMP_FRAMES];
+    public final double[] jumpH = new double[JUMP_FRAMES];
+    // Pixel mask of each frame at its draw size: run frames, then squat, then jump
+    private CollisionMask[] masks;
+
+    public static RunnerMetrics load() {
+        RunnerMetrics m = new RunnerMetrics();
+        double[] run = PngInfo.size(RES_DIR + "run1.png");
+        double[] squat = PngInfo.size(RES_DIR + "squat1.png");
+
+        double scale = 1.0;
+        if (run != null) {
+            m.standH = 90;
+            scale = m.standH / run[1];
+            m.standW = run[0] * scale;
+        }
+        m.globalScale = scale;
+        if (squat != null) {
+            double squatScale = scale * 1.2;
+            m.squatH = squat[1] * squatScale;
+            m.squatW = squat[0] * squatScale;
+            m.squatHitboxH = Math.min(m.squatH, 60);
+        }
+        for (int i = 0; i < JUMP_FRAMES; i++) {
+            double[] jump = PngInfo.size(RES_DIR + "jump" + (i + 1) + ".png");
+            if (jump != null) {
+                m.jumpW[i] = jump[0] * scale * m.jumpScaleFactor;
+                m.jumpH[i] = jump[1] * scale * m.jumpScaleFactor;
+            } else {
+                m.jumpW[i] = m.standW;
+                m.jumpH[i] = m.standH;
+            }
+        }
+        m.masks = loadMasks(m);
+        return m;
+    }
+
+    // Collision mask of the frame the player shows (RunnerWorld.SPRITE_* and frame index)
+    public CollisionMask mask(int kind, int frame) {
+        switch (kind) {
+            case RunnerWorld.SPRITE_SQUAT: return masks[RUN_FRAMES + frame];
+            case RunnerWorld.SPRITE_JUMP: return masks[RUN_FRAMES + SQUAT_FRAMES + frame];
+            default: return masks[frame];
+        }
+    }
+
+    // The shipped masks if they were made from the current sprites and sizes; otherwise
+    // (sprites changed without re-running MaskBaker) decodes the PNGs, which takes about a second
+    private static CollisionMask[] loadMasks(RunnerMetrics m) {
+        try (InputStream in = RunnerMetrics.class.getResourceAsStream(MASKS)) {
+            if (in != null) {
+                CollisionMask[] masks = CollisionMask.read(in, sourceHash(m));
+                if (masks != null && masks.length == MASK_COUNT) return masks;
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Collision mask Error: " + e.getMessage());
+        }
+        System.err.println("Collision masks missing or out of date, decoding sprites (run MaskBaker to refresh)");
+        return buildMasks(m);
+    }
+
+    // SHA-256 over everything buildMasks reads: each frame's PNG bytes, its mask size and
+    // the squat hitbox height. Stored in runner.masks to tell whether it is still current.
+    static byte[] sourceHash(RunnerMetrics m) throws IOException {
+        MessageDigest md;
+        try {
+            md = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException(e);
+        }
+        byte[] chunk = new byte[16 * 1024];
+        for (int i = 0; i < MASK_COUNT; i++) {
+            String resource = frameResource(i);
+            md.update(resource.getBytes(StandardCharsets.UTF_8));
+            try (InputStream in = RunnerMetrics.class.getResourceAsStream(resource)) {
+                if (in != null) {
+                    int n;
+                    while ((n = in.read(chunk)) > 0) md.update(chunk, 0, n);
+                }
+            }
+            double[] size = m.maskSize(i);
+            md.update(ByteBuffer.allocate(8).putInt((int) Math.round(size[0])).putInt((int) Math.round(size[1])).array());
+        }
+        md.update(ByteBuffer.allocate(4).putInt(m.squatClipRows()).array());
+        return md.digest();
+    }
+
+    // Decodes every frame's alpha at its draw size. A missing PNG is drawn as a filled box,
+    // so its mask is one too. Squat masks keep the lower squatHitboxH only, like the old
+    // crouch hitbox, so ducking under a bird works the same.
+    static CollisionMask[] buildMasks(RunnerMetrics m) {
+        CollisionMask[] masks = new CollisionMask[MASK_COUNT];
+        for (int i = 0; i < MASK_COUNT; i++) {
+            double[] size = m.maskSize(i);
+            int w = (int) Math.round(size[0]), h = (int) Math.round(size[1]);
+            String resource = frameResource(i);
+            try {
+                masks[i] = decodeMask(resource, w, h);
+            } catch (IOException e) {
+                System.err.println("Collision mask Error: " + resource + " " + e.getMessage());
+            }
+            if (masks[i] == null) masks[i] = CollisionMask.rect(w, h);
+            if (i >= RUN_FRAMES && i < RUN_FRAMES + SQUAT_FRAMES) masks[i].clearAbove(m.squatClipRows());
+        }
+        return masks;
+    }
+
+    // A sprite's alpha, scaled down to the size it is drawn at: a pixel is solid where the
+    // source pixels under it average at least half opaque. Null if the resource is missing.
+    static CollisionMask decodeMask(String resource, int width, int height) throws IOException {
+        BufferedImage image;
+        try (InputStream in = RunnerMetrics.class.getResourceAsStream(resource)) {
+            if (in == null) return null;
+            image = ImageIO.read(in);
+        }
+        if (image == null) throw new IOException("Not an image: " + resource);
+        int srcW = image.getWidth(), srcH = image.getHeight();
+        long[] alpha = new long[width * height];
+        int[] count = new int[width * height];
+        int[] line = new int[srcW];
+        for (int sy = 0; sy < srcH; sy++) {
+            image.getRGB(0, sy, srcW, 1, line, 0, srcW);
+            int y = (int) ((long) sy * height / srcH);
+            for (int sx = 0; sx < srcW; sx++) {
+                int i = y * width + (int) ((long) sx * width / srcW);
+                alpha[i] += line[sx] >>> 24;
+                count[i]++;
+            }
+        }
+        CollisionMask m = new CollisionMask(width, height);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int i = y * width + x;
+                if (count[i] > 0 && alpha[i] * 2 >= 255L * count[i]) m.set(x, y);
+            }
+        }
+        m.updateBounds();
+        return m;
+    }
+
+    // Sprite PNG of mask i
+    private static String frameResource(int i) {
+        if (i < RUN_FRAMES) return RES_DIR + "run" + (i + 1) + ".png";
+        if (i < RUN_FRAMES + SQUAT_FRAMES) return RES_DIR + "squat" + (i - RUN_FRAMES + 1) + ".png";
+        return RES_DIR + "jump" + (i - RUN_FRAMES - SQUAT_FRAMES + 1) + ".png";
+    }
+
+    // Rows cleared above the squat hitbox
+    private int squatClipRows() {
+        return (int) Math.round(squatH - squatHitboxH);
+    }
+
+    // Draw size of mask i
+    private double[] maskSize(int i) {
+        if (i < RUN_FRAMES) return new double[] { standW, standH };
+        if (i < RUN_FRAMES + SQUAT_FRAMES) return new double[] { squatW, squatH };
+        int j = i - RUN_FRAMES - SQUAT_FRAMES;
+        return new double[] { jumpW[j], jumpH[j] };
+    }
+}
@@ -0,0 +1,278 @@
+package com.example.usakogame.runner;
+
+import com.example.usakogame.sim.BroadPhase;
+import com.example.usakogame.sim.Checksum;
+import com.example.usakogame.sim.CollisionMask;
+import com.example.usakogame.sim.EntityStore;
+import com.example.usakogame.sim.Input;
+import com.example.usakogame.sim.Playfield;
+import com.example.usakogame.sim.SimEvent;
+import com.example.usakogame.sim.SimRandom;
+import com.example.usakogame.sim.Swept;
+
+// Headless Usako Run! simulation: physics, spawning, scoring and collision.
+// Contains no JavaFX or sound code, so it can be stepped millions of times per second
+// for balancing, testing and score verification. RunnerGame renders it.
+public class RunnerWorld {
+    public static final int SPRITE_RUN = 0;
+    public static final int SPRITE_SQUAT = 1;
+    public static final int SPRITE_JUMP = 2;
+
+    public static final double PLAYER_X = 80; // Fixed X position
+    public static final double GROUND_Y = 500; // Floor Level Y
+    private static final double GRAVITY = 0.8;
+    private static final double JUMP_FORCE = -15;
+    public static final double START_SPEED = 6;
+    // Obstacle types (EntityStore.type)
+    public static final int OBSTACLE_GROUND = 0;
+    public static final int OBSTACLE_SKY = 1;
+    private static final int MAX_OBSTACLES = 64; // At most a few are ever on screen
+    static final int GROUND_W = 50, GROUND_H = 60;
+    static final int SKY_SIZE = 45;
+    // Obstacle shapes as drawn: ground blocks are boxes, sky obstacles are ovals
+    private static final CollisionMask GROUND_MASK = CollisionMask.rect(GROUND_W, GROUND_H);
+    private static final CollisionMask SKY_MASK = CollisionMask.ellipse(SKY_SIZE, SKY_SIZE);
+    private static final double MAX_OBSTACLE_W = Math.max(GROUND_W, SKY_SIZE);
+
+    private final RunnerMetrics metrics;
+    private final SimRandom random;
+
+    private double playerY;      // Current Y position (represented as Feet Y)
+    private double prevPlayerY;  // playerY at the previous tick, for interpolated rendering
+    private double velocityY = 0;
+
+    private boolean isRunning = false;
+    private boolean isGameOver = false;
+    private boolean isCrouching = false;
+
+    private int score = 0;
+    private int tick = 0;
+    private double animTick = 0;
+
+    // Always sorted by x: all spawn at the right edge and scroll at obsSpeed
+    private final EntityStore obstacles;
+    private double obsSpeed = START_SPEED;
+    private int spawnTimer = 0;
+    private int milestoneTimer = 0;
+
+    public RunnerWorld(RunnerMetrics metrics, long seed) {
+        this(metrics, seed, MAX_OBSTACLES);
+    }
+
+    // With room for more obstacles than a run ever has at once (dense benchmarks)
+    RunnerWorld(RunnerMetrics metrics, long seed, int maxObstacles) {
+        this.metrics = metrics;
+        this.random = new SimRandom(seed);
+        this.obstacles = new EntityStore(maxObstacles);
+        reset(seed);
+    }
+
+    public void reset(long seed) {
+        random.setSeed(seed);
+        obstacles.clear();
+        playerY = GROUND_Y;
+        prevPlayerY = playerY;
+        velocityY = 0;
+        score = 0;
+        tick = 0;
+        animTick = 0;
+        obsSpeed = START_SPEED;
+        spawnTimer = 0;
+        isRunning = false;
+        isGameOver = false;
+        isCrouching = false;
+        milestoneTimer = 0;
+    }
+
+    // Advances one tick. inputMask is a combination of Input bits; returns SimEvent bits.
+    public int step(int inputMask) {
+        // Keep the previous tick's positions so the renderer can interpolate between ticks
+        prevPlayerY = playerY;
+        obstacles.savePositions();
+
+        if (isGameOver) return SimEvent.NONE;
+        if (!isRunning) {
+            if ((inputMask & (Input.JUMP | Input.START)) == 0) return SimEvent.NONE;
+            isRunning = true;
+        }
+
+        int events = SimEvent.NONE;
+        if ((inputMask & Input.JUMP) != 0 && Math.abs(playerY - GROUND_Y) < 1) {
+            velocityY = JUMP_FORCE;
+            events |= SimEvent.JUMP;
+        }
+        isCrouching = (inputMask & Input.CROUCH) != 0;
+        if ((inputMask & Input.DUCK) != 0 && playerY < GROUND_Y) velocityY += 5;
+
+        tick++;
+
+        // Animation speed based on running speed
+        animTick += (obsSpeed / 6.0);
+
+        velocityY += GRAVITY;
+        playerY += velocityY;
+
+        if (playerY > GROUND_Y) {
+            playerY = GROUND_Y;
+            velocityY = 0;
+        }
+
+        spawnTimer++;
+        if (spawnTimer > (1200 / obsSpeed) + random.nextInt(30)) {
+             spawnObstacle();
+             spawnTimer = 0;
+        }
+
+        obstacles.scroll(obsSpeed);
+        if (collides()) {
+            isGameOver = true;
+            events |= SimEvent.GAME_OVER;
+        }
+        // Sorted by x, so the ones off screen are at the front
+        while (!obstacles.isEmpty() && obstacles.x[obstacles.slot(0)] < -100) obstacles.despawnOldest();
+
+        if (tick % 10 == 0) {
+             score++;
+             if (score % 100 == 0) {
+                 events |= SimEvent.SCORE;
+                 milestoneTimer = 60; // Display for ~1 second (60 ticks)
+             }
+        }
+        if (milestoneTimer > 0) milestoneTimer--;
+
+        if (tick % 300 == 0) obsSpeed += 0.5;
+        return events;
+    }
+
+    private void spawnObstacle() {
+        boolean isSky = random.nextDouble() > 0.6;
+
+        double ox = Playfield.WIDTH;
+        double oy;
+        double ow = GROUND_W;
+        double oh = GROUND_H;
+
+        if (isSky) {
+            double offset = 50 + random.nextInt(100);
+            oy = GROUND_Y - offset;
+            oh = SKY_SIZE;
+            ow = SKY_SIZE;
+        } else {
+            oy = GROUND_Y - GROUND_H;
+            oh = GROUND_H;
+            ow = GROUND_W;
+        }
+        obstacles.spawn(ox, oy, ow, oh, isSky ? OBSTACLE_SKY : OBSTACLE_GROUND);
+    }
+
+    // Whether any obstacle hits the player this tick. Only the ones whose span, swept over
+    // this tick's scroll, can reach the player's sprite go to the narrow phase (BroadPhase).
+    boolean collides() {
+        double maxX = PLAYER_X + getSpriteWidth();
+        int i = BroadPhase.firstAbove(obstacles, PLAYER_X - obsSpeed - MAX_OBSTACLE_W);
+        for (; i < obstacles.size(); i++) {
+            int s = obstacles.slot(i);
+            if (obstacles.x[s] >= maxX) break; // All the rest are further right
+            if (checkCollision(s)) return true;
+        }
+        return false;
+    }
+
+    // Pixel-accurate (see RunnerMetrics.mask) and swept over the whole tick (the player's
+    // fall or rise, the obstacle's scroll), so transparent corners of the sprite never hit
+    // and no speed lets an obstacle pass through between ticks. The pose at the end of the
+    // tick is used throughout. One narrow-phase test per obstacle: a swept test of the solid
+    // bounds, then one pass over the rows where they meet (CollisionMask.sweptOverlaps).
+    boolean checkCollision(int slot) {
+        CollisionMask player = metrics.mask(getSpriteKind(), getSpriteFrame());
+        CollisionMask shape = obstacles.type[slot] == OBSTACLE_SKY ? SKY_MASK : GROUND_MASK;
+        double top = playerY - getSpriteHeight(); // The sprite is drawn from (PLAYER_X, top)
+        double ox = obstacles.x[slot], oy = obstacles.y[slot];
+        double vy = playerY - prevPlayerY;
+        double vx = ox - obstacles.prevX[slot];
+
+        // Early out: the solid bounds of the two never meet during the tick
+        double t = Swept.timeOfImpact(PLAYER_X + player.getLeft(), top + player.getTop(),
+                player.getRight() - player.getLeft(), player.getBottom() - player.getTop(), 0, vy,
+                ox + shape.getLeft(), oy + shape.getTop(),
+                shape.getRight() - shape.getLeft(), shape.getBottom() - shape.getTop(), vx, 0);
+        if (t < 0) return false;
+
+        // The obstacle relative to the sprite, from first contact to the end of the tick
+        double back = 1 - t;
+        double dx = ox - PLAYER_X, dy = oy - top;
+        return player.sweptOverlaps(shape, dx - vx * back, dy + vy * back, dx, dy);
+    }
+
+    public boolean isInAir() {
+        return Math.abs(playerY - GROUND_Y) > 5;
+    }
+
+    private int jumpFrame() {
+        double maxVy = -JUMP_FORCE;
+        double progress = (velocityY - JUMP_FORCE) / (maxVy - JUMP_FORCE);
+        int frame = (int)(progress * 6);
+        if (frame < 0) frame = 0;
+        if (frame > 5) frame = 5;
+        return frame;
+    }
+
+    // Which animation the player sprite currently shows (SPRITE_RUN/SQUAT/JUMP)
+    public int getSpriteKind() {
+        if (isInAir()) return SPRITE_JUMP;
+        if (isCrouching && !isGameOver) return SPRITE_SQUAT;
+        return SPRITE_RUN;
+    }
+
+    public int getSpriteFrame() {
+        switch (getSpriteKind()) {
+            case SPRITE_JUMP: return jumpFrame();
+            case SPRITE_SQUAT: return ((int)animTick / 5) % RunnerMetrics.SQUAT_FRAMES;
+            default: return ((int)animTick / 5) % RunnerMetrics.RUN_FRAMES;
+        }
+    }
+
+    // Draw size of the player sprite
+    public double getSpriteWidth() {
+        if (isInAir()) return metrics.jumpW[jumpFrame()];
+        return isCrouching ? metrics.squatW : metrics.standW;
+    }
+
+    public double getSpriteHeight() {
+        if (isInAir()) return metrics.jumpH[jumpFrame()];
+        return isCrouching ? metrics.squatH : metrics.standH;
+    }
+
+    // Fingerprint of the whole simulation state: equal only if a replay reproduced the run exactly
+    public long checksum() {
+        long h = Checksum.mix(random.getState(), tick);
+        h = Checksum.mix(h, score);
+        h = Checksum.mix(h, playerY);
+        h = Checksum.mix(h, velocityY);
+        h = Checksum.mix(h, obsSpeed);
+        h = Checksum.mix(h, animTick);
+        h = Checksum.mix(h, (isRunning ? 1 : 0) | (isGameOver ? 2 : 0) | (isCrouching ? 4 : 0));
+        for (int i = 0; i < obstacles.size(); i++) {
+            int s = obstacles.slot(i);
+            h = Checksum.mix(Checksum.mix(h, obstacles.x[s]), obstacles.y[s]);
+        }
+        return h;
+    }
+
+    public RunnerMetrics getMetrics() { return metrics; }
+    public double getPlayerY() { return playerY; }
+    public double getPrevPlayerY() { return prevPlayerY; }
+    public double getVelocityY() { return velocityY; }
+    public boolean isRunning() { return isRunning; }
+    public boolean isGameOver() { return isGameOver; }
+    public boolean isCrouching() { return isCrouching; }
+    public int getScore() { return score; }
+    public int getTick() { return tick; }
+    public double getAnimTick() { return animTick; }
+    public double getObsSpeed() { return obsSpeed; }
+    public int getMilestoneTimer() { return milestoneTimer; }
+    public EntityStore getObstacles() { return obstacles; }
+
+    // For stress checks at speeds a real run never reaches (see CollisionStressTest)
+    void setObsSpeed(double speed) { obsSpeed = speed; }
+}
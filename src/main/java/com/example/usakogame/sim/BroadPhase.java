@@ -0,0 +1,22 @@
+package com.example.usakogame.sim;
+
+// Sweep-and-prune broad phase for the scrolling worlds. Obstacles and pipes all spawn at
+// the right edge and scroll left at one shared speed, so their stores stay sorted by x
+// without ever sorting: the entities that can reach the player form one run of them,
+// found by binary search, and only those go to the narrow phase. Collision cost per tick
+// stays flat however many entities are alive.
+public final class BroadPhase {
+    private BroadPhase() {}
+
+    // Index (oldest first, see EntityStore.slot) of the first entity whose x is above
+    // minX, or size()
+    public static int firstAbove(EntityStore entities, double minX) {
+        int lo = 0, hi = entities.size();
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (entities.x[entities.slot(mid)] > minX) hi = mid;
+            else lo = mid + 1;
+        }
+        return lo;
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.usakogame.sim;
+
+// Order-sensitive 64-bit hash of world state, for checking that a replay reproduced a run exactly
+public final class Checksum {
+    private Checksum() {}
+
+    public static long mix(long h, long v) {
+        h = (h ^ v) * 0x9E3779B97F4A7C15L;
+        return h ^ (h >>> 29);
+    }
+
+    public static long mix(long h, double v) {
+        return mix(h, Double.doubleToRawLongBits(v));
+    }
+}
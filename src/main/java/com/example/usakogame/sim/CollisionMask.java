@@ -0,0 +1,255 @@
+package com.example.usakogame.sim;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+// Pixel-accurate collision shape at display scale: one bit per screen pixel, packed into
+// longs row by row. Two masks are tested by AND-ing 64 pixels of a row at a time, only
+// over the rows and columns where both masks' solid bounds overlap (a few words for a
+// sprite-sized overlap), so transparent corners of a sprite never collide.
+//
+// File layout (little endian): "USKM", version, mask count, SHA-256 of the sources the
+// masks were made from (32 bytes), then per mask width and height (ints) and its words
+// row by row, CRC32 of everything before it.
+public final class CollisionMask {
+    private static final int MAGIC = 0x4D4B5355; // "USKM" little endian
+    private static final int VERSION = 2; // 2: source hash
+    public static final int SOURCE_HASH_BYTES = 32;
+
+    public final int width;
+    public final int height;
+    private final int stride; // Longs per row
+    private final long[] bits;
+    // Bounds of the set pixels (right / bottom exclusive); empty mask: left >= right
+    private int left, top, right, bottom;
+    // Per row, first set pixel and one past the last (empty row: start >= end)
+    private final int[] rowStart, rowEnd;
+
+    public CollisionMask(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.stride = (width + 63) >>> 6;
+        this.bits = new long[stride * height];
+        this.rowStart = new int[height];
+        this.rowEnd = new int[height];
+    }
+
+    public void set(int x, int y) {
+        bits[y * stride + (x >>> 6)] |= 1L << x;
+    }
+
+    public boolean get(int x, int y) {
+        return (bits[y * stride + (x >>> 6)] & 1L << x) != 0;
+    }
+
+    // Clears every row above y (e.g. to keep a crouch hitbox lower than its sprite)
+    public void clearAbove(int y) {
+        for (int i = 0; i < Math.min(y, height) * stride; i++) bits[i] = 0;
+        updateBounds();
+    }
+
+    public int getLeft() { return left; }
+    public int getTop() { return top; }
+    public int getRight() { return right; }
+    public int getBottom() { return bottom; }
+
+    public int countSet() {
+        int n = 0;
+        for (long word : bits) n += Long.bitCount(word);
+        return n;
+    }
+
+    // Whether the solid bounds of b, placed at (dx, dy) relative to this mask, overlap ours
+    public boolean boundsOverlap(CollisionMask b, int dx, int dy) {
+        return Math.max(left, b.left + dx) < Math.min(right, b.right + dx)
+                && Math.max(top, b.top + dy) < Math.min(bottom, b.bottom + dy);
+    }
+
+    // Whether any set pixel of b, placed at (dx, dy) relative to this mask, is set here too
+    public boolean overlaps(CollisionMask b, int dx, int dy) {
+        int x0 = Math.max(left, b.left + dx), x1 = Math.min(right, b.right + dx);
+        int y0 = Math.max(top, b.top + dy), y1 = Math.min(bottom, b.bottom + dy);
+        if (x0 >= x1 || y0 >= y1) return false;
+        if (stride == 1 && b.stride == 1) {
+            // Both at most 64 wide: one shift and one AND per row. |dx| < 64 here, and bits
+            // shifted past either edge are columns outside this mask anyway.
+            for (int y = y0; y < y1; y++) {
+                long other = dx >= 0 ? b.bits[y - dy] << dx : b.bits[y - dy] >>> -dx;
+                if ((bits[y] & other) != 0) return true;
+            }
+            return false;
+        }
+        for (int y = y0; y < y1; y++) {
+            int row = y * stride, rowB = (y - dy) * b.stride;
+            for (int x = x0; x < x1; x += 64) {
+                long m = row(bits, row, stride, x) & row(b.bits, rowB, b.stride, x - dx);
+                if (x1 - x < 64) m &= (1L << (x1 - x)) - 1;
+                if (m != 0) return true;
+            }
+        }
+        return false;
+    }
+
+    // Whether a set pixel of b, moving in a straight line from offset (dx0, dy0) to
+    // (dx1, dy1) relative to this mask, lands on a set pixel here at any moment of the move
+    // (offsets rounded to whole pixels, as in overlaps). Each row of b counts as solid from
+    // its first to its last set pixel, which is exact for convex shapes such as rect and
+    // ellipse: every row of the area they sweep is then one run of pixels, tested with one
+    // AND per word of this mask's row, however far b moves sideways.
+    public boolean sweptOverlaps(CollisionMask b, double dx0, double dy0, double dx1, double dy1) {
+        double ddx = dx1 - dx0, ddy = dy1 - dy0;
+        int minDy = (int) Math.round(Math.min(dy0, dy1)), maxDy = (int) Math.round(Math.max(dy0, dy1));
+        int y0 = Math.max(top, b.top + minDy), y1 = Math.min(bottom, b.bottom + maxDy);
+        if (minDy == maxDy) {
+            // No vertical motion in whole pixels: every row of b shifts by the same span
+            int lo = (int) Math.round(Math.min(dx0, dx1)), hi = (int) Math.round(Math.max(dx0, dx1));
+            for (int y = y0; y < y1; y++) {
+                int r = y - minDy;
+                if (b.rowStart[r] >= b.rowEnd[r]) continue;
+                int x0 = Math.max(b.rowStart[r] + lo, left), x1 = Math.min(b.rowEnd[r] + hi, right);
+                if (x0 < x1 && anySet(y, x0, x1)) return true;
+            }
+            return false;
+        }
+        for (int y = y0; y < y1; y++) {
+            // Span of row y that b covers during the move, from each row of b that passes over it
+            int lo = Integer.MAX_VALUE, hi = Integer.MIN_VALUE;
+            for (int k = minDy; k <= maxDy; k++) {
+                int r = y - k;
+                if (r < b.top || r >= b.bottom || b.rowStart[r] >= b.rowEnd[r]) continue;
+                // Part of the move during which b sits k rows down
+                double ta = (k - 0.5 - dy0) / ddy, tb = (k + 0.5 - dy0) / ddy;
+                if (ta > tb) {
+                    double swap = ta;
+                    ta = tb;
+                    tb = swap;
+                }
+                ta = Math.max(ta, 0);
+                tb = Math.min(tb, 1);
+                if (ta > tb) continue;
+                double xa = dx0 + ddx * ta, xb = dx0 + ddx * tb;
+                lo = Math.min(lo, b.rowStart[r] + (int) Math.round(Math.min(xa, xb)));
+                hi = Math.max(hi, b.rowEnd[r] + (int) Math.round(Math.max(xa, xb)));
+            }
+            int x0 = Math.max(lo, left), x1 = Math.min(hi, right);
+            if (x0 < x1 && anySet(y, x0, x1)) return true;
+        }
+        return false;
+    }
+
+    // Whether row y has a set pixel in columns [x0, x1)
+    private boolean anySet(int y, int x0, int x1) {
+        if (stride == 1) return (bits[y] & -1L << x0 & -1L >>> (64 - x1)) != 0;
+        int row = y * stride, first = x0 >>> 6, last = (x1 - 1) >>> 6;
+        for (int word = first; word <= last; word++) {
+            long m = -1L;
+            if (word == first) m &= -1L << x0;
+            if (word == last) m &= -1L >>> (63 - ((x1 - 1) & 63));
+            if ((bits[row + word] & m) != 0) return true;
+        }
+        return false;
+    }
+
+    // 64 pixels of one row starting at column x, column x in bit 0
+    private static long row(long[] bits, int row, int stride, int x) {
+        int word = x >>> 6, shift = x & 63;
+        long v = bits[row + word] >>> shift;
+        if (shift != 0 && word + 1 < stride) v |= bits[row + word + 1] << (64 - shift);
+        return v;
+    }
+
+    // Recomputes the bounds after set() calls (the factories and clearAbove do this themselves)
+    public void updateBounds() {
+        left = width;
+        top = height;
+        right = 0;
+        bottom = 0;
+        for (int y = 0; y < height; y++) {
+            rowStart[y] = width;
+            rowEnd[y] = 0;
+            for (int x = 0; x < width; x++) {
+                if (!get(x, y)) continue;
+                rowStart[y] = Math.min(rowStart[y], x);
+                rowEnd[y] = x + 1;
+                left = Math.min(left, x);
+                right = Math.max(right, x + 1);
+                top = Math.min(top, y);
+                bottom = y + 1;
+            }
+        }
+    }
+
+    public static CollisionMask rect(int width, int height) {
+        CollisionMask m = new CollisionMask(width, height);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) m.set(x, y);
+        }
+        m.updateBounds();
+        return m;
+    }
+
+    // Pixels whose centre lies inside the ellipse filling the box (as fillOval draws it)
+    public static CollisionMask ellipse(int width, int height) {
+        CollisionMask m = new CollisionMask(width, height);
+        double rx = width / 2.0, ry = height / 2.0;
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                double nx = (x + 0.5 - rx) / rx, ny = (y + 0.5 - ry) / ry;
+                if (nx * nx + ny * ny <= 1) m.set(x, y);
+            }
+        }
+        m.updateBounds();
+        return m;
+    }
+
+    public static byte[] toBytes(CollisionMask[] masks, byte[] sourceHash) {
+        if (sourceHash.length != SOURCE_HASH_BYTES) throw new IllegalArgumentException("Source hash must be SHA-256");
+        int size = 4 + 4 + 4 + SOURCE_HASH_BYTES + 4;
+        for (CollisionMask m : masks) size += 8 + m.bits.length * 8;
+        ByteBuffer b = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+        b.putInt(MAGIC).putInt(VERSION).putInt(masks.length).put(sourceHash);
+        for (CollisionMask m : masks) {
+            b.putInt(m.width).putInt(m.height);
+            for (long word : m.bits) b.putLong(word);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(b.array(), 0, b.position());
+        b.putInt((int) crc.getValue());
+        return b.array();
+    }
+
+    // Null if the masks were made from other sources than sourceHash (out of date);
+    // IllegalArgumentException if the data is not a mask file or is damaged
+    public static CollisionMask[] fromBytes(byte[] data, byte[] sourceHash) {
+        if (data.length < 16 + SOURCE_HASH_BYTES) throw new IllegalArgumentException("Masks too short");
+        CRC32 crc = new CRC32();
+        crc.update(data, 0, data.length - 4);
+        ByteBuffer b = ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN);
+        if ((int) crc.getValue() != b.getInt(data.length - 4)) throw new IllegalArgumentException("Masks damaged");
+        if (b.getInt() != MAGIC || b.getInt() != VERSION) throw new IllegalArgumentException("Not a mask file");
+        CollisionMask[] masks = new CollisionMask[b.getInt()];
+        byte[] stored = new byte[SOURCE_HASH_BYTES];
+        b.get(stored);
+        if (!Arrays.equals(stored, sourceHash)) return null;
+        for (int i = 0; i < masks.length; i++) {
+            int w = b.getInt(), h = b.getInt();
+            if (w <= 0 || h <= 0 || ((w + 63L) >>> 6) * h * 8 > b.remaining()) throw new IllegalArgumentException("Masks damaged");
+            CollisionMask m = new CollisionMask(w, h);
+            for (int j = 0; j < m.bits.length; j++) m.bits[j] = b.getLong();
+            m.updateBounds();
+            masks[i] = m;
+        }
+        return masks;
+    }
+
+    public static CollisionMask[] read(InputStream in, byte[] sourceHash) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        in.transferTo(out);
+        return fromBytes(out.toByteArray(), sourceHash);
+    }
+}
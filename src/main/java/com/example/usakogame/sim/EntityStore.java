@@ -0,0 +1,95 @@
+package com.example.usakogame.sim;
+
+// The live obstacles or pipes of a world, as columns of primitives in a fixed-capacity
+// ring buffer: no object per entity, spawning writes the slot after the newest and
+// despawning moves past the oldest, both O(1) without shifting anything. Entities enter
+// at the right edge and leave at the left in the order they came, so oldest-first is
+// also x order (see BroadPhase). Walk them oldest first with slot(i), i in [0, size()),
+// or, where every entity is visited, over the two runs of slots (runStart/runEnd) so the
+// loop indexes the columns directly.
+public final class EntityStore {
+    public final double[] x;
+    public final double[] prevX; // x at the previous tick, for interpolated rendering
+    public final double[] y;
+    public final double[] w;
+    public final double[] h;
+    public final int[] type;
+    public final int[] flags;
+
+    private final int mask;
+    private int head; // Slot of the oldest entity
+    private int size;
+
+    // Capacity is rounded up to a power of two
+    public EntityStore(int capacity) {
+        int n = capacity <= 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        x = new double[n];
+        prevX = new double[n];
+        y = new double[n];
+        w = new double[n];
+        h = new double[n];
+        type = new int[n];
+        flags = new int[n];
+        mask = n - 1;
+    }
+
+    public int size() { return size; }
+    public boolean isEmpty() { return size == 0; }
+    public int capacity() { return mask + 1; }
+
+    // Slot (column index) of the i-th oldest entity
+    public int slot(int i) {
+        return (head + i) & mask;
+    }
+
+    // The live slots are at most two contiguous runs, [runStart(0), runEnd(0)) then
+    // [runStart(1), runEnd(1)) (empty unless the ring wrapped), oldest first
+    public int runStart(int run) {
+        return run == 0 ? head : 0;
+    }
+
+    public int runEnd(int run) {
+        int end = Math.min(head + size, mask + 1);
+        return run == 0 ? end : size - (end - head);
+    }
+
+    // Adds an entity after the newest one and returns its slot; IllegalStateException if full
+    public int spawn(double x, double y, double w, double h, int type) {
+        if (size > mask) throw new IllegalStateException("Entity store full (" + capacity() + ")");
+        int s = (head + size++) & mask;
+        this.x[s] = x;
+        this.prevX[s] = x;
+        this.y[s] = y;
+        this.w[s] = w;
+        this.h[s] = h;
+        this.type[s] = type;
+        this.flags[s] = 0;
+        return s;
+    }
+
+    public void despawnOldest() {
+        if (size == 0) return;
+        head = (head + 1) & mask;
+        size--;
+    }
+
+    public void clear() {
+        head = 0;
+        size = 0;
+    }
+
+    // prevX = x for every entity (start of a tick)
+    public void savePositions() {
+        for (int run = 0; run < 2; run++) {
+            int start = runStart(run);
+            System.arraycopy(x, start, prevX, start, runEnd(run) - start);
+        }
+    }
+
+    // Moves every entity left by dx
+    public void scroll(double dx) {
+        for (int run = 0; run < 2; run++) {
+            for (int s = runStart(run), end = runEnd(run); s < end; s++) x[s] -= dx;
+        }
+    }
+}
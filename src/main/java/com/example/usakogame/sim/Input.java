@@ -0,0 +1,12 @@
+package com.example.usakogame.sim;
+
+// Bits of the input mask passed to a world's step() once per tick.
+public final class Input {
+    public static final int NONE = 0;
+    public static final int JUMP = 1;      // Jump/flap pressed this tick (also starts a waiting game)
+    public static final int DUCK = 1 << 1; // Crouch pressed this tick (Runner: pushes down while airborne)
+    public static final int CROUCH = 1 << 2; // Crouch held (Runner)
+    public static final int START = 1 << 3;  // Start a waiting game without jumping (restart after game over)
+
+    private Input() {}
+}
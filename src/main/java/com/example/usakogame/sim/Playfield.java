@@ -0,0 +1,9 @@
+package com.example.usakogame.sim;
+
+// Size of the logical playfield both games simulate in (the game canvas size)
+public final class Playfield {
+    public static final int WIDTH = 600;
+    public static final int HEIGHT = 600;
+
+    private Playfield() {}
+}
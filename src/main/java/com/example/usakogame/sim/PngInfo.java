@@ -0,0 +1,29 @@
+package com.example.usakogame.sim;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+// Reads sprite dimensions straight from the PNG header, so the simulation can size
+// hitboxes exactly like the renderer does without decoding (or even loading) JavaFX images.
+public final class PngInfo {
+
+    private PngInfo() {}
+
+    // Returns {width, height} of a classpath PNG, or null if it is missing or unreadable
+    public static double[] size(String resource) {
+        try (InputStream in = PngInfo.class.getResourceAsStream(resource)) {
+            if (in == null) return null;
+            DataInputStream data = new DataInputStream(in);
+            // 8-byte signature, 4-byte chunk length, "IHDR", then width and height
+            data.skipNBytes(16);
+            int w = data.readInt();
+            int h = data.readInt();
+            if (w <= 0 || h <= 0) return null;
+            return new double[] { w, h };
+        } catch (IOException e) {
+            System.err.println("PNG header Error: " + resource + " " + e.getMessage());
+            return null;
+        }
+    }
+}
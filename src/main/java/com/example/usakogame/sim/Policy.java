@@ -0,0 +1,86 @@
+package com.example.usakogame.sim;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.zip.CRC32;
+
+// A tiny neural network for the autopilots: features -> one tanh hidden layer -> outputs,
+// where an output above 0 presses its button. Evaluating it is a few hundred multiply-adds
+// into preallocated arrays, so it can run every tick for free.
+//
+// File layout: "USKP", version, inputs, hidden, outputs (1 byte each), the weights as
+// float32 LE (per hidden unit: bias then input weights; per output: bias then hidden
+// weights), CRC32 of everything before it.
+public final class Policy {
+    private static final int MAGIC = 0x504B5355; // "USKP" little endian
+    private static final int VERSION = 1;
+
+    public final int inputs;
+    public final int hidden;
+    public final int outputs;
+    private final float[] weights;
+    private final double[] hiddenOut;
+
+    public Policy(int inputs, int hidden, int outputs, float[] weights) {
+        if (weights.length != weightCount(inputs, hidden, outputs)) throw new IllegalArgumentException("Wrong number of weights");
+        this.inputs = inputs;
+        this.hidden = hidden;
+        this.outputs = outputs;
+        this.weights = weights;
+        this.hiddenOut = new double[hidden];
+    }
+
+    public static int weightCount(int inputs, int hidden, int outputs) {
+        return hidden * (inputs + 1) + outputs * (hidden + 1);
+    }
+
+    // Fills out[0..outputs) from in[0..inputs); not thread safe (reuses its hidden layer)
+    public void evaluate(double[] in, double[] out) {
+        int w = 0;
+        for (int h = 0; h < hidden; h++) {
+            double sum = weights[w++];
+            for (int i = 0; i < inputs; i++) sum += weights[w++] * in[i];
+            hiddenOut[h] = Math.tanh(sum);
+        }
+        for (int o = 0; o < outputs; o++) {
+            double sum = weights[w++];
+            for (int h = 0; h < hidden; h++) sum += weights[w++] * hiddenOut[h];
+            out[o] = sum;
+        }
+    }
+
+    public byte[] toBytes() {
+        ByteBuffer b = ByteBuffer.allocate(4 + 4 + weights.length * 4 + 4).order(ByteOrder.LITTLE_ENDIAN);
+        b.putInt(MAGIC).put((byte) VERSION).put((byte) inputs).put((byte) hidden).put((byte) outputs);
+        for (float f : weights) b.putFloat(f);
+        CRC32 crc = new CRC32();
+        crc.update(b.array(), 0, b.position());
+        b.putInt((int) crc.getValue());
+        return b.array();
+    }
+
+    // IllegalArgumentException if the data is not a policy or is damaged
+    public static Policy fromBytes(byte[] data) {
+        if (data.length < 12) throw new IllegalArgumentException("Policy too short");
+        CRC32 crc = new CRC32();
+        crc.update(data, 0, data.length - 4);
+        ByteBuffer b = ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN);
+        if ((int) crc.getValue() != b.getInt(data.length - 4)) throw new IllegalArgumentException("Policy damaged");
+        if (b.getInt() != MAGIC || b.get() != VERSION) throw new IllegalArgumentException("Not a policy");
+        int inputs = b.get();
+        int hidden = b.get();
+        int outputs = b.get();
+        float[] weights = new float[(data.length - 12) / 4];
+        for (int i = 0; i < weights.length; i++) weights[i] = b.getFloat();
+        return new Policy(inputs, hidden, outputs, weights);
+    }
+
+    public static Policy read(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        in.transferTo(out);
+        return fromBytes(out.toByteArray());
+    }
+}
@@ -0,0 +1,136 @@
+package com.example.usakogame.sim;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.zip.CRC32;
+
+// A recorded run: the seed the world was reset with and the input mask of every tick, kept
+// as the ticks where the mask changed (varint tick delta + varint mask, a few KB for a
+// 10-minute run). Stepping a world reset with the same seed through the same masks
+// reproduces the run exactly; the final score and world checksum are kept to prove it.
+//
+// File layout: "USKR", version, mode id (ScoreLog.MODES order), seed (8 bytes LE), then
+// varints: ticks, score, change count, changes; then the checksum (8 bytes LE) and a CRC32
+// of everything before it.
+public final class Replay {
+    public static final int MODE_FLAPPY = 0;
+    public static final int MODE_RUNNER = 1;
+    public static final int MAX_SPEED = 64; // Fastest playback, in ticks per frame
+
+    private static final int MAGIC = 0x524B5355; // "USKR" little endian
+    private static final int VERSION = 4; // 2: swept collision, 3: pixel masks, 4: swept masks in one pass
+
+    public final int mode;
+    public final long seed;
+    public final int ticks;
+    public final int score;
+    public final long checksum;
+    private final byte[] changes;
+    private final int changeCount;
+
+    Replay(int mode, long seed, int ticks, int score, long checksum, byte[] changes, int changeCount) {
+        this.mode = mode;
+        this.seed = seed;
+        this.ticks = ticks;
+        this.score = score;
+        this.checksum = checksum;
+        this.changes = changes;
+        this.changeCount = changeCount;
+    }
+
+    // Input masks in tick order, one per next() call
+    public Cursor cursor() {
+        return new Cursor();
+    }
+
+    public byte[] toBytes() {
+        ByteBuffer b = ByteBuffer.allocate(4 + 2 + 8 + 3 * 5 + changes.length + 8 + 4).order(ByteOrder.LITTLE_ENDIAN);
+        b.putInt(MAGIC).put((byte) VERSION).put((byte) mode).putLong(seed);
+        putVarint(b, ticks);
+        putVarint(b, score);
+        putVarint(b, changeCount);
+        b.put(changes);
+        b.putLong(checksum);
+        CRC32 crc = new CRC32();
+        crc.update(b.array(), 0, b.position());
+        b.putInt((int) crc.getValue());
+        byte[] out = new byte[b.position()];
+        System.arraycopy(b.array(), 0, out, 0, out.length);
+        return out;
+    }
+
+    // Parses a replay file; IllegalArgumentException if it is not one or is damaged
+    public static Replay fromBytes(byte[] data) {
+        if (data.length < 4 + 2 + 8 + 3 + 8 + 4) throw new IllegalArgumentException("Replay too short");
+        CRC32 crc = new CRC32();
+        crc.update(data, 0, data.length - 4);
+        ByteBuffer b = ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN);
+        if ((int) crc.getValue() != b.getInt(data.length - 4)) throw new IllegalArgumentException("Replay damaged");
+        if (b.getInt() != MAGIC || b.get() != VERSION) throw new IllegalArgumentException("Not a replay");
+        int mode = b.get();
+        long seed = b.getLong();
+        int ticks = getVarint(b);
+        int score = getVarint(b);
+        int changeCount = getVarint(b);
+        // Sizes come from the file, which may be crafted: check them before allocating, and
+        // decode the changes once so a Cursor never runs off their end
+        int length = data.length - b.position() - 8 - 4;
+        if (length < 0 || changeCount < 0 || changeCount > length / 2) throw new IllegalArgumentException("Replay damaged");
+        byte[] changes = new byte[length];
+        b.get(changes);
+        ByteBuffer in = ByteBuffer.wrap(changes);
+        try {
+            for (int i = 0; i < changeCount * 2; i++) getVarint(in);
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Replay damaged");
+        }
+        if (in.hasRemaining()) throw new IllegalArgumentException("Replay damaged");
+        return new Replay(mode, seed, ticks, score, b.getLong(), changes, changeCount);
+    }
+
+    static void putVarint(ByteBuffer b, int v) {
+        while ((v & ~0x7F) != 0) {
+            b.put((byte) ((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        b.put((byte) v);
+    }
+
+    static int getVarint(ByteBuffer b) {
+        int v = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            byte x = b.get();
+            v |= (x & 0x7F) << shift;
+            if (x >= 0) return v;
+        }
+        throw new IllegalArgumentException("Bad varint");
+    }
+
+    public final class Cursor {
+        private final ByteBuffer in = ByteBuffer.wrap(changes);
+        private int remaining = changeCount;
+        private int tick = 0;
+        private int mask = Input.NONE;
+        private int nextChange = remaining > 0 ? getVarint(in) : Integer.MAX_VALUE;
+
+        // Mask of the next tick (NONE once past the end)
+        public int next() {
+            if (tick == nextChange) {
+                mask = getVarint(in);
+                remaining--;
+                nextChange = remaining > 0 ? tick + getVarint(in) : Integer.MAX_VALUE;
+            }
+            tick++;
+            return tick > ticks ? Input.NONE : mask;
+        }
+
+        public boolean isDone() {
+            return tick >= ticks;
+        }
+
+        public int getTick() {
+            return tick;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.usakogame.sim;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+// Records the input mask of each tick of the run being played. record() writes only when
+// the mask changes, into a buffer reused from run to run, so the frame loop pays a compare
+// per tick and never allocates (the buffer only grows on a very long run).
+public final class ReplayRecorder {
+    private ByteBuffer buf = ByteBuffer.allocate(4096);
+    private boolean recording = false;
+    private int mode;
+    private long seed;
+    private int tick;
+    private int lastMask;
+    private int lastChangeTick;
+    private int changes;
+
+    // Call right after resetting the world with seed
+    public void start(int mode, long seed) {
+        this.mode = mode;
+        this.seed = seed;
+        buf.clear();
+        tick = 0;
+        lastMask = Input.NONE;
+        lastChangeTick = 0;
+        changes = 0;
+        recording = true;
+    }
+
+    // The mask passed to the world's step() this tick
+    public void record(int mask) {
+        if (!recording) return;
+        if (mask != lastMask) {
+            if (buf.remaining() < 10) buf = ByteBuffer.allocate(buf.capacity() * 2).put(buf.flip());
+            Replay.putVarint(buf, tick - lastChangeTick);
+            Replay.putVarint(buf, mask);
+            lastChangeTick = tick;
+            lastMask = mask;
+            changes++;
+        }
+        tick++;
+    }
+
+    // Ends the recording at game over
+    public Replay finish(int score, long checksum) {
+        recording = false;
+        return new Replay(mode, seed, tick, score, checksum, Arrays.copyOf(buf.array(), buf.position()), changes);
+    }
+
+    public void cancel() {
+        recording = false;
+    }
+
+    public boolean isRecording() {
+        return recording;
+    }
+}
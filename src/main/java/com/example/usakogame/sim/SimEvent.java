@@ -0,0 +1,12 @@
+package com.example.usakogame.sim;
+
+// Bits of the event mask returned by a world's step(), so renderers can play
+// sounds and show overlays without the simulation knowing about them.
+public final class SimEvent {
+    public static final int NONE = 0;
+    public static final int JUMP = 1;
+    public static final int SCORE = 1 << 1; // Audible score: a pipe passed, or a Runner 100-point milestone
+    public static final int GAME_OVER = 1 << 2;
+
+    private SimEvent() {}
+}
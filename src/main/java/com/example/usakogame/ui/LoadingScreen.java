@@ -0,0 +1,29 @@
+package com.example.usakogame.ui;
+
+import com.example.usakogame.manager.AssetLoader;
+import javafx.geometry.Pos;
+import javafx.scene.Parent;
+import javafx.scene.control.Label;
+import javafx.scene.control.ProgressBar;
+import javafx.scene.layout.VBox;
+import javafx.scene.text.Font;
+import javafx.scene.text.FontWeight;
+
+public class LoadingScreen {
+
+    public static Parent create(AssetLoader loader) {
+        VBox box = new VBox(20);
+        box.setAlignment(Pos.CENTER);
+        box.setStyle("-fx-background-color: white; -fx-padding: 50;");
+
+        Label label = new Label("Loading...");
+        label.setFont(Font.font("Verdana", FontWeight.BOLD, 24));
+
+        ProgressBar bar = new ProgressBar();
+        bar.setPrefWidth(300);
+        bar.progressProperty().bind(loader.progressProperty());
+
+        box.getChildren().addAll(label, bar);
+        return box;
+    }
+}
@@ -0,0 +1,203 @@
+package com.example.usakogame.ui;
+
+import com.example.usakogame.manager.HighScoreManager;
+import com.example.usakogame.manager.RankingQuery;
+import javafx.application.Platform;
+import javafx.collections.ObservableListBase;
+import javafx.geometry.Pos;
+import javafx.scene.control.Label;
+import javafx.scene.control.ListCell;
+import javafx.scene.control.ListView;
+import javafx.scene.input.KeyCode;
+import javafx.scene.layout.HBox;
+import javafx.scene.text.Font;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import java.util.function.ToIntFunction;
+
+// Virtualized ranking: a ListView, which only creates cells for the visible rows and reuses
+// them while scrolling, over a list that fetches PAGE_SIZE rows at a time on a background
+// thread as they come into view. Queries and jumps also run on that thread, so leaderboards
+// of any size never stall the FX thread.
+public class RankingList {
+    private static final int PAGE_SIZE = 100;
+    private static final int CACHED_PAGES = 32;
+    private static final double ROW_HEIGHT = 24;
+    private static final Font ROW_FONT = Font.font("Verdana", 14);
+    private static final DateTimeFormatter DATE = DateTimeFormatter.ofPattern("yyyy/MM/dd").withZone(ZoneId.systemDefault());
+
+    private static final ExecutorService loader = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "ranking-loader");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final ListView<RankingQuery.Row> view = new ListView<>();
+    private PagedRows rows; // FX thread
+
+    public RankingList(int visibleRows, boolean showDates) {
+        view.setFixedCellSize(ROW_HEIGHT);
+        view.setPrefHeight(ROW_HEIGHT * visibleRows + 2);
+        view.setCellFactory(v -> new RowCell(showDates));
+        view.setPlaceholder(new Label("No Data"));
+    }
+
+    public ListView<RankingQuery.Row> getNode() {
+        return view;
+    }
+
+    // Runs the query in the background and shows its first rows; onReady gets the row count.
+    // player null = everyone; runs played in [fromMs, toMs).
+    public void setFilter(String mode, String player, long fromMs, long toMs, IntConsumer onReady) {
+        PagedRows next = new PagedRows();
+        rows = next;
+        loader.execute(() -> {
+            RankingQuery query = HighScoreManager.queryRanking(mode, player, fromMs, toMs);
+            next.query = query; // Not shown yet, so no list change to report
+            Platform.runLater(() -> {
+                if (rows != next) return; // A newer filter was set meanwhile
+                view.setItems(next);
+                view.scrollTo(0);
+                if (onReady != null) onReady.accept(query.size());
+            });
+        });
+    }
+
+    // Selected row, null if none or its page is still loading
+    public RankingQuery.Row getSelected() {
+        return view.getSelectionModel().getSelectedItem();
+    }
+
+    // Called with a row that is double-clicked or opened with Enter
+    public void setOnOpen(Consumer<RankingQuery.Row> action) {
+        view.setOnMouseClicked(e -> {
+            if (e.getClickCount() == 2 && getSelected() != null) action.accept(getSelected());
+        });
+        view.setOnKeyPressed(e -> {
+            if (e.getCode() == KeyCode.ENTER && getSelected() != null) action.accept(getSelected());
+        });
+    }
+
+    public void jumpToRun(long runId) {
+        jump(q -> q.indexOfRun(runId));
+    }
+
+    // Scrolls to the player's best run in the current view
+    public void jumpToPlayer(String name) {
+        jump(q -> q.indexOfPlayer(name));
+    }
+
+    // Queued behind the pending query on the loader thread, so it searches that query's rows
+    private void jump(ToIntFunction<RankingQuery> find) {
+        PagedRows current = rows;
+        if (current == null) return;
+        loader.execute(() -> {
+            int index = find.applyAsInt(current.query);
+            Platform.runLater(() -> {
+                if (rows != current || index < 0) return;
+                view.scrollTo(Math.max(0, index - 2));
+                view.getSelectionModel().select(index);
+            });
+        });
+    }
+
+    // Looks like a list of every row of the query; get() answers from cached pages and asks
+    // the loader for missing ones, which then replace their placeholder rows
+    private class PagedRows extends ObservableListBase<RankingQuery.Row> {
+        volatile RankingQuery query;
+        private final Map<Integer, RankingQuery.Row[]> pages = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, RankingQuery.Row[]> eldest) {
+                return size() > CACHED_PAGES;
+            }
+        };
+        private final Set<Integer> loading = new HashSet<>();
+
+        @Override
+        public int size() {
+            return query == null ? 0 : query.size();
+        }
+
+        @Override
+        public RankingQuery.Row get(int index) {
+            int page = index / PAGE_SIZE;
+            RankingQuery.Row[] rowsOfPage = pages.get(page);
+            if (rowsOfPage != null) return index % PAGE_SIZE < rowsOfPage.length ? rowsOfPage[index % PAGE_SIZE] : null;
+            if (loading.add(page)) {
+                RankingQuery q = query;
+                loader.execute(() -> {
+                    RankingQuery.Row[] loaded = q.page(page * PAGE_SIZE, PAGE_SIZE);
+                    Platform.runLater(() -> pageLoaded(page, loaded));
+                });
+            }
+            return null;
+        }
+
+        private void pageLoaded(int page, RankingQuery.Row[] loaded) {
+            loading.remove(page);
+            pages.put(page, loaded);
+            int from = page * PAGE_SIZE;
+            int to = Math.min(size(), from + loaded.length);
+            if (from >= to) return;
+            // Tell the ListView the placeholder rows changed so the visible cells redraw
+            beginChange();
+            for (int i = from; i < to; i++) nextSet(i, null);
+            endChange();
+        }
+    }
+
+    private static class RowCell extends ListCell<RankingQuery.Row> {
+        private final Label rank = label(50);
+        private final Label name = label(170);
+        private final Label score = label(80);
+        private final Label date = label(100);
+        private final HBox box = new HBox(8, rank, name, score);
+
+        RowCell(boolean showDates) {
+            if (showDates) box.getChildren().add(date);
+            box.setAlignment(Pos.CENTER_LEFT);
+            score.setAlignment(Pos.CENTER_RIGHT);
+            setText(null);
+        }
+
+        private static Label label(double width) {
+            Label l = new Label();
+            l.setFont(ROW_FONT);
+            l.setPrefWidth(width);
+            l.setMinWidth(width);
+            return l;
+        }
+
+        @Override
+        protected void updateItem(RankingQuery.Row row, boolean empty) {
+            super.updateItem(row, empty);
+            if (empty) {
+                setGraphic(null);
+                return;
+            }
+            if (row == null) {
+                // Page still loading
+                rank.setText("…");
+                name.setText("");
+                score.setText("");
+                date.setText("");
+            } else {
+                rank.setText(row.rank + ".");
+                name.setText(row.name);
+                score.setText(String.valueOf(row.score));
+                date.setText(row.timestamp > 0 ? DATE.format(Instant.ofEpochMilli(row.timestamp)) : "");
+            }
+            setGraphic(box);
+        }
+    }
+}
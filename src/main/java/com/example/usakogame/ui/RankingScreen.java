@@ -2,37 +2,93 @@ package com.example.usakogame.ui;
 
 import com.example.usakogame.UsakoGameApp;
 import com.example.usakogame.manager.HighScoreManager;
+import com.example.usakogame.manager.RankingQuery;
+import com.example.usakogame.manager.ScoreStats;
+import com.example.usakogame.sim.Replay;
+import javafx.application.Platform;
 import javafx.geometry.Pos;
 import javafx.scene.Parent;
 import javafx.scene.control.Alert;
 import javafx.scene.control.Button;
 import javafx.scene.control.ButtonType;
+import javafx.scene.control.ComboBox;
+import javafx.scene.control.DatePicker;
 import javafx.scene.control.Label;
 import javafx.scene.control.Separator;
+import javafx.scene.control.Tooltip;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.VBox;
+import javafx.scene.paint.Color;
+import javafx.scene.shape.Rectangle;
 import javafx.scene.text.Font;
 import javafx.scene.text.FontWeight;
 
-import java.util.List;
+import java.time.LocalDate;
+import java.time.ZoneId;
 
 public class RankingScreen {
+    private static final String[] MODES = { "flappy", "runner" };
+    private static final String[] MODE_TITLES = { "Flappy Usako", "Usako Run!" };
+    private static final String ALL_PLAYERS = "全員";
+    private static final int HISTOGRAM_DAYS = 14;
 
     public static Parent create(UsakoGameApp app) {
-        VBox rankRoot = new VBox(20);
+        VBox rankRoot = new VBox(10);
         rankRoot.setAlignment(Pos.CENTER);
-        rankRoot.setStyle("-fx-background-color: rgba(255, 255, 255, 0.95); -fx-padding: 30;");
+        rankRoot.setStyle("-fx-background-color: rgba(255, 255, 255, 0.95); -fx-padding: 20;");
 
         Label title = new Label("ランキング");
         title.setFont(Font.font("Verdana", FontWeight.BOLD, 30));
 
-        HBox tablesBox = new HBox(40);
-        tablesBox.setAlignment(Pos.CENTER);
+        // Filters: mode, player (also selects the statistics below) and the days played
+        ComboBox<String> modeBox = new ComboBox<>();
+        modeBox.getItems().addAll(MODE_TITLES);
+        modeBox.getSelectionModel().select(0);
+        ComboBox<String> playerBox = new ComboBox<>();
+        playerBox.getItems().add(ALL_PLAYERS);
+        playerBox.getItems().addAll(HighScoreManager.getPlayerNames());
+        playerBox.setValue(ALL_PLAYERS);
+        DatePicker fromPicker = new DatePicker();
+        DatePicker toPicker = new DatePicker();
+        fromPicker.setPrefWidth(130);
+        toPicker.setPrefWidth(130);
+        Label countLabel = new Label();
 
-        VBox flappyBox = createRankingTable("Flappy Usako", "flappy");
-        VBox runnerBox = createRankingTable("Usako Run!", "runner");
+        // Every ranked run, scrolled and loaded a page at a time
+        RankingList list = new RankingList(8, true);
 
-        tablesBox.getChildren().addAll(flappyBox, runnerBox);
+        Button myRankBtn = new Button("自分の順位へ");
+        String me = app.getPlayerName();
+        myRankBtn.setDisable(me == null);
+        myRankBtn.setOnAction(e -> list.jumpToPlayer(me));
+
+        // Replay of the selected run (also on double-click / Enter)
+        Button replayBtn = new Button("リプレイを見る");
+        replayBtn.setOnAction(e -> playReplay(app, list.getSelected()));
+        list.setOnOpen(row -> playReplay(app, row));
+
+        HBox statsBox = new HBox(40);
+        statsBox.setAlignment(Pos.CENTER);
+        Runnable applyFilter = () -> {
+            String mode = MODES[modeBox.getSelectionModel().getSelectedIndex()];
+            String player = ALL_PLAYERS.equals(playerBox.getValue()) ? null : playerBox.getValue();
+            LocalDate from = fromPicker.getValue();
+            LocalDate to = toPicker.getValue();
+            list.setFilter(mode, player, from == null ? Long.MIN_VALUE : startOf(from), to == null ? Long.MAX_VALUE : startOf(to.plusDays(1)),
+                    n -> countLabel.setText(n + "件"));
+            // Statistics of every run, or of one player's named runs
+            statsBox.getChildren().setAll(createStatsBox(0, player), createStatsBox(1, player));
+        };
+        modeBox.setOnAction(e -> applyFilter.run());
+        playerBox.setOnAction(e -> applyFilter.run());
+        fromPicker.setOnAction(e -> applyFilter.run());
+        toPicker.setOnAction(e -> applyFilter.run());
+        applyFilter.run();
+
+        HBox filterRow = new HBox(10, modeBox, playerBox, myRankBtn, replayBtn);
+        filterRow.setAlignment(Pos.CENTER);
+        HBox dateRow = new HBox(10, new Label("期間:"), fromPicker, new Label("〜"), toPicker, countLabel);
+        dateRow.setAlignment(Pos.CENTER);
 
         // Delete Data Button
         Button deleteBtn = new Button("ランキングデータを全削除");
@@ -55,30 +111,66 @@ public class RankingScreen {
         Button backBtn = new Button("戻る");
         backBtn.setOnAction(e -> app.showTitleScreen());
 
-        rankRoot.getChildren().addAll(title, tablesBox, new Separator(), deleteBtn, backBtn);
+        HBox buttonRow = new HBox(20, deleteBtn, backBtn);
+        buttonRow.setAlignment(Pos.CENTER);
+
+        rankRoot.getChildren().addAll(title, filterRow, dateRow, list.getNode(), statsBox, new Separator(), buttonRow);
         return rankRoot;
     }
 
-    private static VBox createRankingTable(String title, String mode) {
-        VBox box = new VBox(10);
-        box.setAlignment(Pos.TOP_CENTER);
-        box.setStyle("-fx-border-color: lightgray; -fx-padding: 10; -fx-min-width: 200;");
-
-        Label label = new Label(title);
-        label.setFont(Font.font("Verdana", FontWeight.BOLD, 18));
-        box.getChildren().add(label);
-
-        List<HighScoreManager.ScoreEntry> list = HighScoreManager.getTopScores(mode);
-        if (list.isEmpty()) {
-            box.getChildren().add(new Label("No Data"));
-        } else {
-            for (int i = 0; i < list.size(); i++) {
-                HighScoreManager.ScoreEntry e = list.get(i);
-                Label l = new Label((i + 1) + ". " + e.name + " : " + e.score);
-                l.setFont(Font.font("Verdana", 14));
-                box.getChildren().add(l);
+    // Replays are read on the writer thread; runs recorded before replays existed have none
+    private static void playReplay(UsakoGameApp app, RankingQuery.Row row) {
+        if (row == null) return;
+        HighScoreManager.loadReplay(row.runId).thenAccept(bytes -> Platform.runLater(() -> {
+            Replay replay = null;
+            try {
+                if (bytes != null) replay = Replay.fromBytes(bytes);
+            } catch (RuntimeException e) {
+                System.err.println("Bad replay file: " + e.getMessage());
+            }
+            if (replay != null) {
+                app.startReplay(replay);
+                return;
             }
+            Alert alert = new Alert(Alert.AlertType.INFORMATION);
+            alert.setTitle("リプレイ");
+            alert.setHeaderText(null);
+            alert.setContentText("この記録のリプレイはありません。");
+            alert.showAndWait();
+        }));
+    }
+
+    private static long startOf(LocalDate day) {
+        return day.atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static VBox createStatsBox(int mode, String player) {
+        ScoreStats.Summary st = HighScoreManager.getStats(MODES[mode], player);
+        VBox box = new VBox(2);
+        box.setAlignment(Pos.TOP_LEFT);
+        box.setStyle("-fx-border-color: lightgray; -fx-padding: 6; -fx-min-width: 200;");
+        Label label = new Label(MODE_TITLES[mode]);
+        label.setFont(Font.font("Verdana", FontWeight.BOLD, 14));
+        box.getChildren().addAll(
+                label,
+                new Label("プレイ回数: " + st.runs),
+                new Label(String.format("平均: %.1f  中央値: %d", st.mean, st.median)),
+                new Label("p90: " + st.p90 + "  p99: " + st.p99),
+                new Label("最高: " + st.best + "  連続プレイ: " + st.bestStreak + "日"));
+
+        // Runs per day over the last HISTOGRAM_DAYS days, today on the right
+        int today = ScoreStats.today();
+        int max = 1;
+        for (int d = today - HISTOGRAM_DAYS + 1; d <= today; d++) max = Math.max(max, st.runsOn(d));
+        HBox bars = new HBox(2);
+        bars.setAlignment(Pos.BOTTOM_LEFT);
+        bars.setMinHeight(40);
+        for (int d = today - HISTOGRAM_DAYS + 1; d <= today; d++) {
+            Rectangle bar = new Rectangle(10, Math.max(1, 40.0 * st.runsOn(d) / max), Color.CORNFLOWERBLUE);
+            Tooltip.install(bar, new Tooltip(LocalDate.ofEpochDay(d) + ": " + st.runsOn(d) + "回"));
+            bars.getChildren().add(bar);
         }
+        box.getChildren().addAll(new Label("直近" + HISTOGRAM_DAYS + "日のプレイ回数"), bars);
         return box;
     }
 }
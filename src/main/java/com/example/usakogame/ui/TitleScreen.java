@@ -1,6 +1,7 @@
 package com.example.usakogame.ui;
 
 import com.example.usakogame.UsakoGameApp;
+import com.example.usakogame.render.SpriteAtlas;
 import javafx.animation.AnimationTimer;
 import javafx.application.Platform;
 import javafx.geometry.Pos;
@@ -9,7 +10,6 @@ import javafx.scene.Parent;
 import javafx.scene.control.Alert;
 import javafx.scene.control.Button;
 import javafx.scene.control.Label;
-import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.StackPane;
@@ -46,20 +46,22 @@ public class TitleScreen {
         fLabel.setFont(Font.font("Verdana", FontWeight.BOLD, 24));
         
         ImageView fView = new ImageView();
-        Image birdNormal = app.getFlappyGame().birdNormal;
-        Image birdJump = app.getFlappyGame().birdJump;
+        TitleThumbnails thumbs = app.getTitleThumbnails();
+        SpriteAtlas birdAtlas = thumbs.atlas;
+        int birdNormal = thumbs.birdNormal;
+        int birdJump = thumbs.birdJump;
 
-        if (birdNormal != null) {
-            fView.setImage(birdNormal);
+        if (birdAtlas.has(birdNormal)) {
+            birdAtlas.applyTo(fView, birdNormal);
             fView.setFitWidth(50);
             fView.setFitHeight(50);
             fView.setPreserveRatio(true);
             
             flappyBtn.setOnMouseEntered(e -> {
-                if (birdJump != null) fView.setImage(birdJump);
+                if (birdAtlas.has(birdJump)) birdAtlas.applyTo(fView, birdJump);
             });
             flappyBtn.setOnMouseExited(e -> {
-               if (birdNormal != null) fView.setImage(birdNormal);
+               birdAtlas.applyTo(fView, birdNormal);
             });
         }
         
@@ -82,10 +84,11 @@ public class TitleScreen {
         rLabel.setFont(Font.font("Verdana", FontWeight.BOLD, 24));
         
         ImageView rView = new ImageView();
-        Image[] runAnim = app.getRunnerGame().runAnim;
+        SpriteAtlas runAtlas = thumbs.atlas;
+        int[] runAnim = thumbs.runAnim;
         
-        if (runAnim != null && runAnim.length > 0 && runAnim[0] != null) {
-            rView.setImage(runAnim[0]);
+        if (runAnim.length > 0 && runAtlas.has(runAnim[0])) {
+            runAtlas.applyTo(rView, runAnim[0]);
             rView.setFitWidth(50);
             rView.setFitHeight(50);
             rView.setPreserveRatio(true);
@@ -99,8 +102,8 @@ public class TitleScreen {
                      if (now - lastUpdate >= 100_000_000) { // 100ms
                          lastUpdate = now;
                          frame = (frame + 1) % 6;
-                         if (frame < runAnim.length && runAnim[frame] != null) {
-                             rView.setImage(runAnim[frame]);
+                         if (frame < runAnim.length && runAtlas.has(runAnim[frame])) {
+                             runAtlas.applyTo(rView, runAnim[frame]);
                          }
                      }
                 }
@@ -111,7 +114,7 @@ public class TitleScreen {
             });
             runBtn.setOnMouseExited(e -> {
                 runBtnTimer.stop();
-                rView.setImage(runAnim[0]);
+                runAtlas.applyTo(rView, runAnim[0]);
             });
             runBtn.setOnAction(e -> {
                 runBtnTimer.stop();
@@ -136,21 +139,17 @@ public class TitleScreen {
         creditBox.setAlignment(Pos.CENTER);
         VBox.setMargin(creditBox, new javafx.geometry.Insets(20, 0, 0, 0));
 
-        try {
-            Image iconImg = new Image(TitleScreen.class.getResourceAsStream("/com/example/usakogame/ritaneko.png"), 60, 60, true, true);
-            if (iconImg != null) {
-                ImageView iconView = new ImageView(iconImg);
-                iconView.setFitWidth(30);
-                iconView.setFitHeight(30);
-                iconView.setSmooth(true);
-                
-                Circle clip = new Circle(15, 15, 15);
-                iconView.setClip(clip);
-                
-                creditBox.getChildren().add(iconView);
-            }
-        } catch (Exception e) {
-            // Ignore if icon fails
+        if (thumbs.atlas.has(thumbs.creditIcon)) {
+            ImageView iconView = new ImageView();
+            thumbs.atlas.applyTo(iconView, thumbs.creditIcon);
+            iconView.setFitWidth(30);
+            iconView.setFitHeight(30);
+            iconView.setSmooth(true);
+            
+            Circle clip = new Circle(15, 15, 15);
+            iconView.setClip(clip);
+            
+            creditBox.getChildren().add(iconView);
         }
 
         Label creditLabel = new Label("Created by Rita");
@@ -0,0 +1,25 @@
+package com.example.usakogame.ui;
+
+import com.example.usakogame.render.SpriteAtlas;
+
+// Small copies of the sprites the title screen buttons show (at most 50x50), loaded first
+// so the title can appear before either game's full animation set has been decoded.
+public class TitleThumbnails {
+    private static final String RES_DIR = "/com/example/usakogame/";
+    private static final double SIZE = 50;
+
+    public final SpriteAtlas atlas = new SpriteAtlas();
+    public final int birdNormal;
+    public final int birdJump;
+    public final int[] runAnim = new int[6];
+    public final int creditIcon;
+
+    public TitleThumbnails() {
+        birdNormal = atlas.addFit(RES_DIR + "usako_normal.png", SIZE, SIZE);
+        birdJump = atlas.addFit(RES_DIR + "usako_jump.png", SIZE, SIZE);
+        for (int i = 0; i < runAnim.length; i++) {
+            runAnim[i] = atlas.addFit(RES_DIR + "run" + (i + 1) + ".png", SIZE, SIZE);
+        }
+        creditIcon = atlas.addFit(RES_DIR + "ritaneko.png", 30, 30);
+    }
+}
@@ -10,4 +10,6 @@ module com.example.usakogame {
     exports com.example.usakogame.ui;
     exports com.example.usakogame.flappy;
     exports com.example.usakogame.runner;
+    exports com.example.usakogame.render;
+    exports com.example.usakogame.sim;
 }
\ No newline at end of file
@@ -0,0 +1,163 @@
+package com.example.usakogame;
+
+import com.example.usakogame.flappy.FlappyAutopilot;
+import com.example.usakogame.flappy.FlappyBirdGame;
+import com.example.usakogame.flappy.FlappyWorld;
+import com.example.usakogame.manager.MusicSequencer;
+import com.example.usakogame.render.LayeredCanvas;
+import com.example.usakogame.render.RenderStats;
+import com.example.usakogame.runner.RunnerAutopilot;
+import com.example.usakogame.runner.RunnerGame;
+import com.example.usakogame.runner.RunnerMetrics;
+import com.example.usakogame.runner.RunnerWorld;
+import com.example.usakogame.sim.Input;
+import com.example.usakogame.sim.Policy;
+import javafx.application.Platform;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+// Allocation budget of the per-tick and per-frame paths. 10,000 ticks of both worlds under
+// their autopilots plus one 10 ms period of background music per tick must allocate no more
+// than -Dusako.allocationBudget (default 0 bytes) once warm. Warm-up runs several passes
+// first: one is not always enough for tiered compilation to settle, and a deoptimizing
+// frame can allocate a few bytes inside the VM.
+// 10,000 frames of both games' real render(layers, alpha) are measured the same way. They
+// need the JavaFX toolkit (skipped where it cannot start, e.g. no display), and the result
+// is only reported until a budget is given with -Dusako.renderAllocationBudget.
+class AllocationBudgetTest {
+    private static final int TICKS = 10_000;
+    private static final int WARMUP_PASSES = 3;
+    private static final long BUDGET_BYTES = Long.getLong("usako.allocationBudget", 0);
+    private static final Long RENDER_BUDGET_BYTES = Long.getLong("usako.renderAllocationBudget");
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private long seed = 1;
+
+    @TempDir
+    Path dataDir;
+
+    @Test
+    void simulationTickStaysWithinBudget() throws IOException {
+        RunnerWorld runner = new RunnerWorld(RunnerMetrics.load(), 1);
+        FlappyWorld flappy = FlappyWorld.withShippedSprites(1);
+        RunnerAutopilot runnerPilot = new RunnerAutopilot(policy("runner"));
+        FlappyAutopilot flappyPilot = new FlappyAutopilot(policy("flappy"));
+        MusicSequencer music = new MusicSequencer(1);
+        music.setPlaying(true);
+        int[] musicPeriod = new int[441];
+
+        long allocated = 0;
+        for (int pass = 0; pass <= WARMUP_PASSES; pass++) {
+            long before = THREADS.getCurrentThreadAllocatedBytes();
+            runner.step(Input.START);
+            flappy.step(Input.START);
+            for (int i = 0; i < TICKS; i++) {
+                runner.step(runnerPilot.decide(runner));
+                if (runner.isGameOver()) {
+                    runner.reset(seed++);
+                    runner.step(Input.START);
+                }
+                flappy.step(flappyPilot.decide(flappy));
+                if (flappy.isGameOver()) {
+                    flappy.reset(seed++);
+                    flappy.step(Input.START);
+                }
+                music.setTempo(120 * runner.getObsSpeed() / RunnerWorld.START_SPEED);
+                music.renderChunk(musicPeriod, musicPeriod.length);
+            }
+            allocated = THREADS.getCurrentThreadAllocatedBytes() - before;
+        }
+        assertTrue(allocated <= BUDGET_BYTES, "Simulation tick allocated " + allocated
+                + " bytes over " + TICKS + " ticks (budget " + BUDGET_BYTES + ")");
+    }
+
+    @Test
+    void renderStaysWithinBudget() throws Exception {
+        assumeTrue(startToolkit(), "JavaFX toolkit unavailable (no display)");
+        // The games read high scores; keep the player's own data out of the test
+        System.setProperty("usako.dataDir", dataDir.toString());
+        CompletableFuture<Long> result = new CompletableFuture<>();
+        Platform.runLater(() -> {
+            try {
+                result.complete(renderGames());
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            }
+        });
+        long allocated = result.get(120, TimeUnit.SECONDS);
+        System.out.println("Rendering allocated " + allocated + " bytes over " + TICKS + " frames of each game");
+        if (RENDER_BUDGET_BYTES != null) {
+            assertTrue(allocated <= RENDER_BUDGET_BYTES, "Rendering allocated " + allocated
+                    + " bytes over " + TICKS + " frames (budget " + RENDER_BUDGET_BYTES + ")");
+        }
+    }
+
+    // FX thread: both games in attract mode, each frame one update and one render of every
+    // layer that changed, at a varying interpolation alpha. Restarting a finished demo is
+    // not a frame path, so what it allocates is left out.
+    private static long renderGames() throws IOException {
+        RunnerGame runner = new RunnerGame(null);
+        runner.atlas.build(1);
+        RunnerAutopilot runnerPilot = new RunnerAutopilot(policy("runner"));
+        runner.startDemo(runnerPilot);
+        FlappyBirdGame flappy = new FlappyBirdGame(null);
+        flappy.atlas.build(1);
+        FlappyAutopilot flappyPilot = new FlappyAutopilot(policy("flappy"));
+        flappy.startDemo(flappyPilot);
+        LayeredCanvas runnerLayers = new LayeredCanvas(UsakoGameApp.WINDOW_WIDTH, UsakoGameApp.WINDOW_HEIGHT);
+        LayeredCanvas flappyLayers = new LayeredCanvas(UsakoGameApp.WINDOW_WIDTH, UsakoGameApp.WINDOW_HEIGHT);
+
+        long allocated = 0;
+        for (int pass = 0; pass <= WARMUP_PASSES; pass++) {
+            long restarts = 0;
+            long before = THREADS.getCurrentThreadAllocatedBytes();
+            for (int i = 0; i < TICKS; i++) {
+                double alpha = (i & 3) / 4.0;
+                runner.update();
+                runner.render(runnerLayers, alpha);
+                flappy.update();
+                flappy.render(flappyLayers, alpha);
+                RenderStats.endFrame(i);
+                if (runner.getWorld().isGameOver() || flappy.getWorld().isGameOver()) {
+                    long r = THREADS.getCurrentThreadAllocatedBytes();
+                    if (runner.getWorld().isGameOver()) runner.startDemo(runnerPilot);
+                    if (flappy.getWorld().isGameOver()) flappy.startDemo(flappyPilot);
+                    restarts += THREADS.getCurrentThreadAllocatedBytes() - r;
+                }
+            }
+            allocated = THREADS.getCurrentThreadAllocatedBytes() - before - restarts;
+        }
+        return allocated;
+    }
+
+    private static boolean startToolkit() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        try {
+            Platform.startup(started::countDown);
+        } catch (IllegalStateException alreadyRunning) {
+            return true;
+        } catch (RuntimeException | UnsatisfiedLinkError noDisplay) {
+            return false;
+        }
+        return started.await(30, TimeUnit.SECONDS);
+    }
+
+    private static Policy policy(String game) throws IOException {
+        try (InputStream in = AllocationBudgetTest.class.getResourceAsStream("/com/example/usakogame/autopilot/" + game + ".policy")) {
+            return Policy.read(in);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.usakogame.runner;
+
+import com.example.usakogame.sim.CollisionMask;
+import com.example.usakogame.sim.EntityStore;
+import com.example.usakogame.sim.Input;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// The pixel-accurate, swept collision. Exactness: with nothing moving, every random
+// placement must agree with a brute-force pixel-by-pixel comparison of the masks.
+// Tunneling: at scroll speeds up to far beyond anything a run reaches, a ground block that
+// sweeps across a standing player's feet within one tick must always hit, and a sky
+// obstacle above the player's head must never hit. Whole runs where the player never
+// moves must end on the first ground block.
+class CollisionStressTest {
+    private static final int TRIALS = 10_000;
+    private static final int RUNS = 50;
+    private static final double[] SPEEDS = { 6, 50, 80, 200, 1000, 10_000 };
+
+    private RunnerWorld world;
+    private EntityStore obstacles;
+    private CollisionMask player;
+    private double top;
+    private final SplittableRandom random = new SplittableRandom(1);
+
+    @BeforeEach
+    void setUp() {
+        RunnerMetrics metrics = RunnerMetrics.load();
+        world = new RunnerWorld(metrics, 1); // Standing on the ground, never started
+        obstacles = world.getObstacles(); // Tested one at a time, then cleared
+        player = metrics.mask(world.getSpriteKind(), world.getSpriteFrame());
+        top = RunnerWorld.GROUND_Y - world.getSpriteHeight();
+    }
+
+    @Test
+    void stationaryPlacementsMatchBruteForce() {
+        CollisionMask ground = CollisionMask.rect(RunnerWorld.GROUND_W, RunnerWorld.GROUND_H);
+        CollisionMask sky = CollisionMask.ellipse(RunnerWorld.SKY_SIZE, RunnerWorld.SKY_SIZE);
+        int wrong = 0;
+        for (int i = 0; i < TRIALS; i++) {
+            boolean isSky = random.nextBoolean();
+            CollisionMask shape = isSky ? sky : ground;
+            int dx = random.nextInt(-shape.width, player.width);
+            int dy = random.nextInt(-shape.height, player.height);
+            int obs = obstacles.spawn(RunnerWorld.PLAYER_X + dx, top + dy, shape.width, shape.height,
+                    isSky ? RunnerWorld.OBSTACLE_SKY : RunnerWorld.OBSTACLE_GROUND);
+            if (world.checkCollision(obs) != bruteForce(player, shape, dx, dy)) wrong++;
+            obstacles.clear();
+        }
+        assertEquals(0, wrong, "placements disagreeing with brute force");
+    }
+
+    @Test
+    void fastObstaclesDoNotTunnel() {
+        // The first solid column in the rows a ground block covers (the player's feet)
+        int feetX = player.width;
+        for (int y = (int) Math.round(world.getSpriteHeight()) - RunnerWorld.GROUND_H; y < player.height; y++) {
+            for (int x = 0; x < player.width; x++) {
+                if (player.get(x, y)) feetX = Math.min(feetX, x);
+            }
+        }
+        double headY = top + player.getTop();
+
+        for (double speed : SPEEDS) {
+            int missed = 0, falseHits = 0;
+            for (int i = 0; i < TRIALS; i++) {
+                // Ends the tick anywhere from just past the player's feet to far beyond them
+                double x = RunnerWorld.PLAYER_X + feetX - 51 - random.nextDouble() * speed;
+                int block = obstacles.spawn(x, RunnerWorld.GROUND_Y - RunnerWorld.GROUND_H,
+                        RunnerWorld.GROUND_W, RunnerWorld.GROUND_H, RunnerWorld.OBSTACLE_GROUND);
+                obstacles.prevX[block] = x + speed;
+                // Started the tick in front of them (1 px margin for rounding)
+                if (x + speed + RunnerWorld.GROUND_W > RunnerWorld.PLAYER_X + feetX + 2 && !world.checkCollision(block)) missed++;
+                int bird = obstacles.spawn(x, headY - RunnerWorld.SKY_SIZE - random.nextDouble() * 100,
+                        RunnerWorld.SKY_SIZE, RunnerWorld.SKY_SIZE, RunnerWorld.OBSTACLE_SKY);
+                obstacles.prevX[bird] = x + speed;
+                if (world.checkCollision(bird)) falseHits++;
+                obstacles.clear();
+            }
+            assertEquals(0, missed, "ground blocks passing through the feet at " + speed + " px/tick");
+            assertEquals(0, falseHits, "sky obstacles hitting below the head at " + speed + " px/tick");
+        }
+    }
+
+    @Test
+    void standingPlayerDiesOnFirstGroundBlock() {
+        for (double speed : SPEEDS) {
+            int survived = 0;
+            for (long seed = 1; seed <= RUNS; seed++) {
+                world.reset(seed);
+                world.step(Input.START);
+                world.setObsSpeed(speed);
+                // Blocks that scrolled past are dropped in the same tick at these speeds, so
+                // also give up after a minute
+                for (int t = 0; !world.isGameOver(); t++) {
+                    boolean passed = t > 60 * 60;
+                    for (int i = 0; i < obstacles.size(); i++) {
+                        int s = obstacles.slot(i);
+                        if (obstacles.type[s] == RunnerWorld.OBSTACLE_GROUND
+                                && obstacles.x[s] + obstacles.w[s] < RunnerWorld.PLAYER_X) passed = true;
+                    }
+                    if (passed) {
+                        survived++;
+                        break;
+                    }
+                    world.step(Input.NONE);
+                }
+            }
+            assertEquals(0, survived, "runs that passed a ground block at " + speed + " px/tick");
+        }
+    }
+
+    // Whether a set pixel of b at (dx, dy) lands on a set pixel of a, one pixel at a time
+    private static boolean bruteForce(CollisionMask a, CollisionMask b, int dx, int dy) {
+        for (int y = 0; y < b.height; y++) {
+            for (int x = 0; x < b.width; x++) {
+                int ax = x + dx, ay = y + dy;
+                if (b.get(x, y) && ax >= 0 && ax < a.width && ay >= 0 && ay < a.height && a.get(ax, ay)) return true;
+            }
+        }
+        return false;
+    }
+}
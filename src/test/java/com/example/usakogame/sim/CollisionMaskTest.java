@@ -0,0 +1,31 @@
+package com.example.usakogame.sim;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// sweptOverlaps on shapes with empty rows between solid ones: a sweep wider than the
+// shape must not turn the empty rows solid.
+class CollisionMaskTest {
+    @Test
+    void emptyRowsStayEmptyInWideSweeps() {
+        // Two 1-pixel bars, rows 0 and 9, nothing in between
+        CollisionMask bars = new CollisionMask(8, 10);
+        for (int x = 0; x < 8; x++) {
+            bars.set(x, 0);
+            bars.set(x, 9);
+        }
+        bars.updateBounds();
+        // A target only in row 5 of the bars' path
+        CollisionMask target = new CollisionMask(64, 10);
+        target.set(30, 5);
+        target.updateBounds();
+
+        assertFalse(target.sweptOverlaps(bars, 60, 0, -10, 0), "horizontal sweep");
+        assertFalse(target.sweptOverlaps(bars, 60, 0.2, -10, 0.4), "sweep within one row");
+        bars.set(3, 5);
+        bars.updateBounds();
+        assertTrue(target.sweptOverlaps(bars, 60, 0, -10, 0), "solid pixel in the row");
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.usakogame.sim;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.zip.CRC32;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+// Replay files come from players, so fromBytes must reject anything malformed with
+// IllegalArgumentException, even when the CRC, magic and version are right.
+class ReplayTest {
+    @Test
+    void roundTrip() {
+        ReplayRecorder recorder = new ReplayRecorder();
+        recorder.start(1, 42);
+        for (int t = 0; t < 300; t++) recorder.record(t % 50 < 10 ? Input.JUMP : Input.NONE);
+        Replay replay = Replay.fromBytes(recorder.finish(123, 7).toBytes());
+        assertEquals(42, replay.seed);
+        assertEquals(123, replay.score);
+        Replay.Cursor cursor = replay.cursor();
+        for (int t = 0; t < 300; t++) assertEquals(t % 50 < 10 ? Input.JUMP : Input.NONE, cursor.next());
+    }
+
+    @Test
+    void rejectsNegativeChangesLength() {
+        // Three 5-byte varints and no room left for the changes and the world checksum
+        assertThrows(IllegalArgumentException.class, () -> Replay.fromBytes(craft(new int[] { -1, -1, -1 }, 0, false)));
+    }
+
+    @Test
+    void rejectsChangeCountBeyondData() {
+        assertThrows(IllegalArgumentException.class, () -> Replay.fromBytes(craft(new int[] { 100, 5, 1_000_000 }, 4, true)));
+        assertThrows(IllegalArgumentException.class, () -> Replay.fromBytes(craft(new int[] { 100, 5, -7 }, 4, true)));
+    }
+
+    @Test
+    void rejectsChangesThatDoNotDecode() {
+        // Claims two changes, but the last varint runs off the end
+        byte[] data = craft(new int[] { 100, 5, 2 }, 4, true);
+        int changes = data.length - 4 - 8 - 4;
+        for (int i = changes; i < changes + 4; i++) data[i] = (byte) 0x80;
+        assertThrows(IllegalArgumentException.class, () -> Replay.fromBytes(withCrc(data)));
+    }
+
+    // A replay file with the given header varints, changeBytes bytes of 1s as the changes,
+    // optionally the world checksum, and a valid CRC
+    private static byte[] craft(int[] varints, int changeBytes, boolean checksum) {
+        ByteBuffer b = ByteBuffer.allocate(64).order(ByteOrder.LITTLE_ENDIAN);
+        b.putInt(0x524B5355).put((byte) 4).put((byte) 0).putLong(1);
+        for (int v : varints) {
+            for (int i = 0; i < 4; i++) b.put((byte) ((v >>> (7 * i) & 0x7F) | 0x80));
+            b.put((byte) (v >>> 28 & 0x0F));
+        }
+        for (int i = 0; i < changeBytes; i++) b.put((byte) 1);
+        if (checksum) b.putLong(0);
+        byte[] data = new byte[b.position() + 4];
+        System.arraycopy(b.array(), 0, data, 0, b.position());
+        return withCrc(data);
+    }
+
+    private static byte[] withCrc(byte[] data) {
+        CRC32 crc = new CRC32();
+        crc.update(data, 0, data.length - 4);
+        ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN).putInt(data.length - 4, (int) crc.getValue());
+        return data;
+    }
+}